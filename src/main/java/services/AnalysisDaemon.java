@@ -0,0 +1,303 @@
+package services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.jgit.api.Git;
+import weka.core.Instance;
+import weka.core.Instances;
+import wekaClass.DatasetIndex;
+import wekaClass.DatasetLoader;
+import wekaClass.FindAfMethod;
+import wekaClass.PrintMethodFeatures;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Processo residente che espone le analisi di MethodAnalyzer, PrintMethodFeatures, FindAfMethod e
+ * BugCommitMatcher su un endpoint HTTP locale (solo loopback).
+ *
+ * Repository, mappe dei ticket, dataset (ARFF o CSV) con il relativo indice (metodo, commit), regole PMD e cache
+ * di AST e blob restano in memoria tra una richiesta e l'altra: dopo il warm-up una singola query non paga
+ * più avvio della JVM, apertura del repository e caricamento dei dati.
+ *
+ * Endpoint (risposte text/plain, stesso formato dei rispettivi main):
+ * <pre>
+ *   GET  /method?commit=&lt;hash&gt;&amp;method=&lt;nome&gt;       metriche del metodo nel commit
+ *   POST /method                                      batch: una coppia "commit,metodo" per riga
+ *   GET  /features?dataset=&lt;arff&gt;&amp;method=&amp;commit=     feature del metodo nel dataset
+ *   POST /features?dataset=&lt;arff&gt;                     batch: una coppia "metodo,commit" per riga
+ *   GET  /af?dataset=&lt;arff&gt;                            AFMethod del dataset
+ *   GET  /tickets?project=&lt;KEY&gt;                        ticket JIRA con i commit associati
+ *   GET  /stats                                       stato delle cache
+ * </pre>
+ */
+public final class AnalysisDaemon {
+    private static final String ENV_PORT = "DAEMON_PORT";
+    private static final String ENV_THREADS = "DAEMON_THREADS";
+    private static final String ENV_PROJECT_NAME = "PROJECT_NAME";
+    private static final int DEFAULT_PORT = 8765;
+    private static final String CONTENT_TYPE = "text/plain; charset=utf-8";
+    private static final String WARM_UP_METHOD = "public int warmUp(int a) { if (a > 0) { return a; } return 0; }";
+
+    private static final Logger LOGGER = Logger.getLogger(AnalysisDaemon.class.getName());
+
+    private final Git git;
+    private final Map<String, Dataset> datasets = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, TicketInfo>> ticketsByProject = new ConcurrentHashMap<>();
+
+    // Dataset residente con il suo indice (metodo, commit) e AFMethod; ricaricato se il file cambia
+    private static final class Dataset {
+        final Instances data;
+        final long lastModified;
+        final DatasetIndex index;
+
+        Dataset(String path, Instances data, long lastModified) {
+            this.data = data;
+            this.lastModified = lastModified;
+            this.index = DatasetIndex.forDataset(path, data);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> params, PrintStream out) throws Exception;
+    }
+
+    private AnalysisDaemon(Git git) {
+        this.git = git;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(System.getenv().getOrDefault(ENV_PORT, String.valueOf(DEFAULT_PORT)));
+        int threads = Integer.parseInt(System.getenv().getOrDefault(ENV_THREADS,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        Git git = Git.open(new File(MethodAnalyzer.getRepoDirectory(), ".git"));
+        // Reader dei blob riusati dai thread delle richieste per tutta la vita del daemon
+        BlobStore blobs = BlobStore.open(git.getRepository());
+        AnalysisDaemon daemon = new AnalysisDaemon(git);
+        // Gli argomenti sono dataset ARFF da caricare subito
+        daemon.warmUp(args);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        server.createContext("/method", exchange -> daemon.serve(exchange, daemon::handleMethod));
+        server.createContext("/features", exchange -> daemon.serve(exchange, daemon::handleFeatures));
+        server.createContext("/af", exchange -> daemon.serve(exchange, daemon::handleAfMethod));
+        server.createContext("/tickets", exchange -> daemon.serve(exchange, daemon::handleTickets));
+        server.createContext("/stats", exchange -> daemon.serve(exchange, daemon::handleStats));
+        server.setExecutor(executor);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            executor.shutdown();
+            blobs.close();
+            git.close();
+        }));
+        server.start();
+        LOGGER.info(() -> "AnalysisDaemon in ascolto su http://localhost:" + port + " (" + threads + " thread)");
+    }
+
+    // Abilita il commit-graph, carica regole PMD e dataset prima della prima richiesta
+    private void warmUp(String[] datasetPaths) throws Exception {
+        long start = System.currentTimeMillis();
+        RevisionWalker.enableCommitGraph(git.getRepository());
+        PmdSmellCounter.countSmells(WARM_UP_METHOD);
+        for (String path : datasetPaths) {
+            try {
+                dataset(path);
+            } catch (Exception e) {
+                LOGGER.warning("Dataset non caricato (" + path + "): " + e.getMessage());
+            }
+        }
+        LOGGER.info(() -> "Warm-up completato in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void serve(HttpExchange exchange, Handler handler) throws IOException {
+        long start = System.nanoTime();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int status = 200;
+        try (PrintStream out = new PrintStream(buffer, false, StandardCharsets.UTF_8)) {
+            try {
+                String method = exchange.getRequestMethod();
+                if (!"GET".equals(method) && !"POST".equals(method)) {
+                    status = 405;
+                    out.println("Metodo HTTP non supportato: " + method);
+                } else {
+                    handler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()), out);
+                }
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                out.println("Richiesta non valida: " + e.getMessage());
+            } catch (Exception e) {
+                status = 500;
+                out.println("Errore: " + e.getMessage());
+                LOGGER.log(Level.WARNING, "Errore nella richiesta " + exchange.getRequestURI(), e);
+            }
+        }
+
+        byte[] body = buffer.toByteArray();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.getResponseHeaders().set("X-Elapsed-Ms", String.valueOf(elapsedMs));
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+        LOGGER.fine(() -> exchange.getRequestURI() + " -> " + exchange.getResponseCode() + " in " + elapsedMs + " ms");
+    }
+
+    private void handleMethod(HttpExchange exchange, Map<String, String> params, PrintStream out) throws IOException {
+        List<MethodAnalyzer.MethodQuery> queries;
+        if ("POST".equals(exchange.getRequestMethod())) {
+            queries = MethodAnalyzer.readQueries(git.getRepository(), requestBody(exchange));
+        } else {
+            queries = List.of(new MethodAnalyzer.MethodQuery(required(params, "commit"), required(params, "method")));
+        }
+        MethodAnalyzer.extractMetricsFromBatch(git, queries, out);
+    }
+
+    private void handleFeatures(HttpExchange exchange, Map<String, String> params, PrintStream out) throws Exception {
+        Dataset dataset = dataset(required(params, "dataset"));
+        if ("POST".equals(exchange.getRequestMethod())) {
+            BufferedReader reader = requestBody(exchange);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+                String[] tokens = trimmed.split("[,\\s]+");
+                if (tokens.length < 2) continue;
+                printFeatures(dataset, tokens[0], tokens[1], out);
+            }
+        } else {
+            printFeatures(dataset, required(params, "method"), required(params, "commit"), out);
+        }
+    }
+
+    private static void printFeatures(Dataset dataset, String method, String commit, PrintStream out) {
+        Instance inst = dataset.index.instance(method, commit);
+        if (inst != null) {
+            PrintMethodFeatures.printFeatures(dataset.data, inst, out);
+        } else {
+            out.println("Metodo non trovato: " + method + " nel commit " + commit);
+        }
+    }
+
+    private void handleAfMethod(HttpExchange exchange, Map<String, String> params, PrintStream out) throws Exception {
+        Dataset dataset = dataset(required(params, "dataset"));
+        Instance afMethod = dataset.index.afMethod();
+        if (afMethod != null) {
+            FindAfMethod.printAfMethod(dataset.data, afMethod, out);
+        } else {
+            out.println("Nessun metodo buggy trovato nella release più recente.");
+        }
+    }
+
+    private void handleTickets(HttpExchange exchange, Map<String, String> params, PrintStream out) throws Exception {
+        String projectKey = params.getOrDefault("project",
+                System.getenv().getOrDefault(ENV_PROJECT_NAME, "").toUpperCase(Locale.ROOT));
+        if (projectKey.isEmpty()) {
+            throw new IllegalArgumentException("parametro 'project' mancante");
+        }
+        for (Map.Entry<String, TicketInfo> entry : tickets(projectKey).entrySet()) {
+            out.println("Ticket: " + entry.getKey());
+            for (CommitRef commit : entry.getValue().getAssociatedCommits()) {
+                out.println("  - Commit: " + commit.getName() + " | " + commit.getShortMessage());
+            }
+        }
+    }
+
+    private void handleStats(HttpExchange exchange, Map<String, String> params, PrintStream out) {
+        out.println("Repository: " + git.getRepository().getDirectory());
+        out.println("Dataset: " + datasets.keySet());
+        out.println("Ticket: " + ticketsByProject.keySet());
+        out.println(AstCache.shared());
+        out.println(BlobStore.cacheStats());
+    }
+
+    // Dataset in memoria: caricato alla prima richiesta e ricaricato solo se il file è stato modificato
+    private Dataset dataset(String path) throws Exception {
+        File file = new File(path).getCanonicalFile();
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("dataset non trovato: " + path);
+        }
+        String key = file.getPath();
+        Dataset cached = datasets.get(key);
+        if (cached != null && cached.lastModified == file.lastModified()) {
+            return cached;
+        }
+        synchronized (datasets) {
+            cached = datasets.get(key);
+            if (cached != null && cached.lastModified == file.lastModified()) {
+                return cached;
+            }
+            long lastModified = file.lastModified();
+            Instances data = DatasetLoader.load(key);
+            if (data == null) {
+                throw new IOException("impossibile leggere il dataset " + key);
+            }
+            Dataset dataset = new Dataset(key, data, lastModified);
+            datasets.put(key, dataset);
+            LOGGER.info(() -> "Dataset caricato: " + key + " (" + data.numInstances() + " istanze)");
+            return dataset;
+        }
+    }
+
+    // Mappa ticket -> commit calcolata una sola volta per progetto (JIRA + visita della storia)
+    private Map<String, TicketInfo> tickets(String projectKey) throws Exception {
+        Map<String, TicketInfo> cached = ticketsByProject.get(projectKey);
+        if (cached != null) return cached;
+        synchronized (ticketsByProject) {
+            cached = ticketsByProject.get(projectKey);
+            if (cached != null) return cached;
+            Map<String, TicketInfo> bugTickets = JiraTicketFetcher.fetchFixedBugTickets(projectKey);
+            Map<String, TicketInfo> mapped = BugCommitMatcher.mapTicketsToCommits(
+                    bugTickets, git, git.getRepository().getDirectory().getPath());
+            ticketsByProject.put(projectKey, mapped);
+            return mapped;
+        }
+    }
+
+    private static BufferedReader requestBody(HttpExchange exchange) {
+        return new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("parametro '" + name + "' mancante");
+        }
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
@@ -0,0 +1,194 @@
+package services;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Providers;
+import com.github.javaparser.ast.CompilationUnit;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache di processo dei CompilationUnit indicizzata per ObjectId del blob: lo stesso contenuto
+ * viene parsato una sola volta anche se compare in più commit, release o diff.
+ *
+ * Le voci recenti sono mantenute in una LRU limitata dal peso totale (caratteri di sorgente);
+ * quelle espulse restano raggiungibili tramite SoftReference finché il GC non ha bisogno di memoria.
+ * Thread-safe: il parsing avviene fuori dal lock con un JavaParser per thread.
+ */
+public final class AstCache {
+    private static final String ENV_MAX_CHARS = "AST_CACHE_MAX_CHARS";
+    private static final long DEFAULT_MAX_CHARS = 4_000_000L;
+
+    private static final AstCache SHARED = new AstCache(
+            Long.parseLong(System.getenv().getOrDefault(ENV_MAX_CHARS, String.valueOf(DEFAULT_MAX_CHARS))));
+
+    private static final ThreadLocal<JavaParser> PARSER = ThreadLocal.withInitial(JavaParser::new);
+
+    /**
+     * Fornisce il sorgente da parsare in caso di miss.
+     */
+    @FunctionalInterface
+    public interface SourceLoader {
+        String load() throws IOException;
+    }
+
+    private static final class Entry {
+        final CompilationUnit unit;
+        final long weight;
+
+        Entry(CompilationUnit unit, long weight) {
+            this.unit = unit;
+            this.weight = weight;
+        }
+    }
+
+    private static final class SoftEntry extends SoftReference<CompilationUnit> {
+        final ObjectId key;
+        final long weight;
+
+        SoftEntry(ObjectId key, Entry entry, ReferenceQueue<CompilationUnit> queue) {
+            super(entry.unit, queue);
+            this.key = key;
+            this.weight = entry.weight;
+        }
+    }
+
+    private final long maxWeight;
+    private long weight;
+    private final LinkedHashMap<ObjectId, Entry> strong = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<ObjectId, SoftEntry> soft = new HashMap<>();
+    private final ReferenceQueue<CompilationUnit> clearedQueue = new ReferenceQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder softHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AstCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public static AstCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Restituisce il CompilationUnit del blob leggendolo dal repository (tramite BlobStore) solo in caso di miss:
+     * il parser legge direttamente dal buffer in cache, senza costruire una String del sorgente.
+     */
+    public CompilationUnit getOrParse(Repository repository, ObjectId blobId) throws IOException {
+        CompilationUnit cached = lookup(blobId);
+        if (cached != null) return cached;
+
+        misses.increment();
+        byte[] source = BlobStore.of(repository).readBytes(blobId);
+        CompilationUnit unit;
+        try (Reader reader = BlobStore.openReader(source)) {
+            unit = PARSER.get().parse(ParseStart.COMPILATION_UNIT, Providers.provider(reader)).getResult().orElse(null);
+        }
+        return store(blobId, unit, source.length);
+    }
+
+    /**
+     * Restituisce il CompilationUnit associato al blob, parsando il sorgente fornito da {@code loader}
+     * in caso di miss. Restituisce null se il parser non produce alcun risultato.
+     */
+    public CompilationUnit getOrParse(ObjectId blobId, SourceLoader loader) throws IOException {
+        CompilationUnit cached = lookup(blobId);
+        if (cached != null) return cached;
+
+        misses.increment();
+        String source = loader.load();
+        if (source == null) return null;
+        CompilationUnit unit = PARSER.get().parse(source).getResult().orElse(null);
+        return store(blobId, unit, source.length());
+    }
+
+    private CompilationUnit store(ObjectId blobId, CompilationUnit unit, long sourceWeight) {
+        if (unit == null) return null;
+        synchronized (this) {
+            Entry existing = strong.get(blobId);
+            if (existing != null) return existing.unit; // parsato nel frattempo da un altro thread
+            put(blobId.copy(), new Entry(unit, Math.max(1, sourceWeight)));
+        }
+        return unit;
+    }
+
+    private synchronized CompilationUnit lookup(ObjectId blobId) {
+        purgeCleared();
+        Entry entry = strong.get(blobId);
+        if (entry != null) {
+            hits.increment();
+            return entry.unit;
+        }
+        SoftEntry softEntry = soft.remove(blobId);
+        if (softEntry != null) {
+            CompilationUnit unit = softEntry.get();
+            if (unit != null) {
+                softHits.increment();
+                put(softEntry.key, new Entry(unit, softEntry.weight));
+                return unit;
+            }
+        }
+        return null;
+    }
+
+    // Da chiamare con il lock: inserisce nella LRU e declassa a soft le voci meno recenti oltre il budget
+    private void put(ObjectId key, Entry entry) {
+        strong.put(key, entry);
+        weight += entry.weight;
+        Iterator<Map.Entry<ObjectId, Entry>> it = strong.entrySet().iterator();
+        while (weight > maxWeight && strong.size() > 1 && it.hasNext()) {
+            Map.Entry<ObjectId, Entry> eldest = it.next();
+            it.remove();
+            weight -= eldest.getValue().weight;
+            soft.put(eldest.getKey(), new SoftEntry(eldest.getKey(), eldest.getValue(), clearedQueue));
+            evictions.increment();
+        }
+    }
+
+    private void purgeCleared() {
+        SoftEntry cleared;
+        while ((cleared = (SoftEntry) clearedQueue.poll()) != null) {
+            soft.remove(cleared.key, cleared);
+        }
+    }
+
+    public synchronized void clear() {
+        strong.clear();
+        soft.clear();
+        weight = 0;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getSoftHits() {
+        return softHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("AstCache{entries=%d, soft=%d, weight=%d/%d, hits=%d, softHits=%d, misses=%d, evictions=%d}",
+                strong.size(), soft.size(), weight, maxWeight, getHits(), getSoftHits(), getMisses(), getEvictions());
+    }
+}
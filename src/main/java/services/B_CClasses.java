@@ -1,52 +1,49 @@
 package services;
 
-import java.io.*;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+import java.io.File;
+import java.io.IOException;
 
 public class B_CClasses {
     /**
      * Splits a CSV file into two files based on the value in the "Smells" column.
      * Rows with "Smells" == "0" go to noSmellCsv, others to hasSmellCsv.
-     *
-     *      */
+     * Both outputs are written by a single {@link DatasetTransformer} pass over the input.
+     */
     public static void splitCSVBySmells(String inputCsv, String noSmellCsv, String hasSmellCsv) {
-        try (
-            BufferedReader reader = new BufferedReader(new FileReader(inputCsv));
-            BufferedWriter writerNoSmell = new BufferedWriter(new FileWriter(noSmellCsv));
-            BufferedWriter writerHasSmell = new BufferedWriter(new FileWriter(hasSmellCsv))
-        ) {
-            String header = reader.readLine();
-            if (header == null) throw new IOException("Empty CSV file");
-            writerNoSmell.write(header);
-            writerNoSmell.newLine();
-            writerHasSmell.write(header);
-            writerHasSmell.newLine();
-
-            String[] headers = header.split(",");
-            int smellIndex = -1;
-            for (int i = 0; i < headers.length; i++) {
-                if (headers[i].trim().equalsIgnoreCase("Smells")) {
-                    smellIndex = i;
-                    break;
-                }
-            }
+        try {
+            DatasetTransformer transformer = new DatasetTransformer(new File(inputCsv));
+            int smellIndex = transformer.column("Smells");
             if (smellIndex == -1) throw new IOException("Smells column not found");
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length > smellIndex && parts[smellIndex].trim().equals("0")) {
-                    writerNoSmell.write(line);
-                    writerNoSmell.newLine();
-                } else {
-                    writerHasSmell.write(line);
-                    writerHasSmell.newLine();
-                }
-            }
+            DatasetTransformer.RowFilter noSmell = row -> row.fieldEquals(smellIndex, "0");
+            transformer.output(new File(noSmellCsv)).where(noSmell);
+            transformer.output(new File(hasSmellCsv)).where(row -> !noSmell.test(row));
+            transformer.run(Runtime.getRuntime().availableProcessors());
         } catch (IOException e) {
             System.err.println("Error processing CSV: " + e.getMessage());
         }
     }
 
+    /**
+     * Versione in memoria di {@link #splitCSVBySmells}: con {@code hasSmells} false restituisce le righe
+     * con Smells == 0, altrimenti le restanti.
+     */
+    public static Instances filterBySmells(Instances data, boolean hasSmells) {
+        Attribute smells = data.attribute("Smells");
+        if (smells == null) throw new IllegalArgumentException("Smells column not found");
+        Instances result = new Instances(data, 0);
+        for (int i = 0; i < data.numInstances(); i++) {
+            boolean noSmell = data.instance(i).value(smells) == 0;
+            if (noSmell != hasSmells) {
+                result.add(data.instance(i));
+            }
+        }
+        return result;
+    }
+
     public static void main(String[] args) {
         if (args.length != 3) {
             System.out.println("Usage: java services.B_CClasses <input.csv> <no_smells.csv> <has_smells.csv>");
@@ -0,0 +1,215 @@
+package services;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accesso condiviso ai blob di un repository Git.
+ *
+ * I contenuti letti di recente restano in una cache LRU di byte, limitata dalla dimensione totale e condivisa
+ * tra repository (l'ObjectId è l'hash del contenuto). Il testo viene decodificato in UTF-8 direttamente dal
+ * buffer in cache, senza passare da copie intermedie di String.
+ *
+ * Un'analisi apre una sessione con {@link #open}: finché è aperta, ogni thread riusa il proprio ObjectReader
+ * e {@link #of} restituisce la sessione; {@link #close} chiude tutti i reader e la rimuove dal registro, che
+ * così non trattiene repository chiusi. Senza sessione aperta ogni miss usa un reader temporaneo.
+ */
+public final class BlobStore implements Closeable {
+    private static final String ENV_MAX_BYTES = "BLOB_CACHE_MAX_BYTES";
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final Map<Repository, BlobStore> SESSIONS = new ConcurrentHashMap<>();
+    private static final ByteCache CACHE = new ByteCache(
+            Long.parseLong(System.getenv().getOrDefault(ENV_MAX_BYTES, String.valueOf(DEFAULT_MAX_BYTES))));
+
+    private final Repository repository;
+    // Null per lo store senza sessione: un reader temporaneo per ogni miss
+    private final ThreadLocal<ObjectReader> readers;
+    private final Queue<ObjectReader> opened = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    private BlobStore(Repository repository, boolean session) {
+        this.repository = repository;
+        this.readers = session ? ThreadLocal.withInitial(this::newReader) : null;
+    }
+
+    /**
+     * Apre la sessione del repository (un ObjectReader per thread), da chiudere prima del repository.
+     */
+    public static BlobStore open(Repository repository) {
+        BlobStore session = new BlobStore(repository, true);
+        if (SESSIONS.putIfAbsent(repository, session) != null) {
+            throw new IllegalStateException("Sessione già aperta per " + repository.getDirectory());
+        }
+        return session;
+    }
+
+    /**
+     * Sessione aperta sul repository se presente, altrimenti uno store senza reader riusati (da non chiudere).
+     */
+    public static BlobStore of(Repository repository) {
+        BlobStore session = SESSIONS.get(repository);
+        return session != null ? session : new BlobStore(repository, false);
+    }
+
+    @Override
+    public void close() {
+        if (readers == null || closed) return;
+        closed = true;
+        SESSIONS.remove(repository, this);
+        // I reader dei thread del pool restano nei ThreadLocal ma chiusi; la sessione non è più raggiungibile
+        for (ObjectReader reader = opened.poll(); reader != null; reader = opened.poll()) {
+            reader.close();
+        }
+    }
+
+    private ObjectReader newReader() {
+        ObjectReader reader = repository.newObjectReader();
+        opened.add(reader);
+        return reader;
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Cerca il blob del file {@code path} nell'albero indicato; null se il file non esiste.
+     */
+    public ObjectId findBlob(RevTree tree, String path) throws IOException {
+        if (readers == null) {
+            try (ObjectReader reader = repository.newObjectReader()) {
+                return findBlob(reader, tree, path);
+            }
+        }
+        return findBlob(sessionReader(), tree, path);
+    }
+
+    private ObjectId findBlob(ObjectReader reader, RevTree tree, String path) throws IOException {
+        try (TreeWalk treeWalk = TreeWalk.forPath(repository, reader, path, tree)) {
+            return treeWalk != null ? treeWalk.getObjectId(0) : null;
+        }
+    }
+
+    /**
+     * Contenuto grezzo del blob. L'array è condiviso con la cache e non va modificato.
+     */
+    public byte[] readBytes(ObjectId blobId) throws IOException {
+        byte[] bytes = CACHE.get(blobId);
+        if (bytes == null) {
+            if (readers == null) {
+                try (ObjectReader reader = repository.newObjectReader()) {
+                    bytes = reader.open(blobId).getCachedBytes(Integer.MAX_VALUE);
+                }
+            } else {
+                bytes = sessionReader().open(blobId).getCachedBytes(Integer.MAX_VALUE);
+            }
+            CACHE.put(blobId.copy(), bytes);
+        }
+        return bytes;
+    }
+
+    private ObjectReader sessionReader() {
+        if (closed) throw new IllegalStateException("Sessione chiusa per " + repository.getDirectory());
+        return readers.get();
+    }
+
+    /**
+     * Testo UTF-8 del blob, decodificato in un'unica passata dal buffer in cache.
+     */
+    public CharSequence readText(ObjectId blobId) throws IOException {
+        return decode(readBytes(blobId));
+    }
+
+    /**
+     * Reader UTF-8 sul contenuto del blob, da passare direttamente ai parser.
+     */
+    public Reader openReader(ObjectId blobId) throws IOException {
+        return openReader(readBytes(blobId));
+    }
+
+    /**
+     * Reader UTF-8 su un contenuto già letto con {@link #readBytes(ObjectId)}.
+     */
+    public static Reader openReader(byte[] bytes) {
+        return new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Testo UTF-8 del file {@code path} nell'albero indicato; null se il file non esiste.
+     */
+    public CharSequence readText(RevTree tree, String path) throws IOException {
+        ObjectId blobId = findBlob(tree, path);
+        return blobId != null ? readText(blobId) : null;
+    }
+
+    private static CharBuffer decode(byte[] bytes) {
+        // Il decoder di Charset sostituisce le sequenze non valide, come new String(bytes, UTF_8)
+        return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes));
+    }
+
+    public static String cacheStats() {
+        return CACHE.toString();
+    }
+
+    // LRU dei contenuti dei blob, limitata dal numero totale di byte
+    private static final class ByteCache {
+        private final long maxBytes;
+        private long totalBytes;
+        private final LinkedHashMap<ObjectId, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        ByteCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized byte[] get(ObjectId blobId) {
+            byte[] bytes = entries.get(blobId);
+            if (bytes != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return bytes;
+        }
+
+        synchronized void put(ObjectId blobId, byte[] bytes) {
+            // I blob troppo grandi non vengono messi in cache per non svuotarla
+            if (bytes.length > maxBytes / 8) return;
+            byte[] previous = entries.put(blobId, bytes);
+            if (previous != null) totalBytes -= previous.length;
+            totalBytes += bytes.length;
+            Iterator<byte[]> it = entries.values().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                totalBytes -= it.next().length;
+                it.remove();
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("BlobCache{entries=%d, bytes=%d/%d, hits=%d, misses=%d}",
+                    entries.size(), totalBytes, maxBytes, hits.sum(), misses.sum());
+        }
+    }
+}
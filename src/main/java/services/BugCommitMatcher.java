@@ -3,6 +3,7 @@ package services;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 
 import java.io.IOException;
 import java.io.File;
@@ -36,14 +37,24 @@ public class BugCommitMatcher {
 
     //Prende tutti i commit da git e passa a processcommit e crea una mappa
     public static Map<String, TicketInfo> mapTicketsToCommits(Map<String, TicketInfo> bugTickets, Git git, String repoPath) throws IOException, GitAPIException {
+        return mapTicketsToCommits(bugTickets, git, repoPath, null);
+    }
+
+    /**
+     * Come sopra; con {@code fixMessages} non null (modalità a memoria limitata) i messaggi dei commit associati
+     * vanno nello store, che viene chiuso al termine, e i ticket conservano solo id e commit time.
+     */
+    static Map<String, TicketInfo> mapTicketsToCommits(Map<String, TicketInfo> bugTickets, Git git, String repoPath,
+                                                       FixCommitStore fixMessages) throws IOException {
         Map<String, TicketInfo> ticketToCommitsMap = new HashMap<>(bugTickets);
         Set<String> matchedTickets = new HashSet<>();
 
-        try {
-            Iterable<RevCommit> commits = git.log().all().call();
-            processCommits(commits, bugTickets, ticketToCommitsMap, matchedTickets, repoPath);
-        } catch (GitAPIException e) {
-            throw new GitAPIException("Errore durante la lettura del log dei commit Git", e) {};
+        // Servono messaggio e autore: la visita conserva il corpo dei commit, rilasciato dopo il confronto
+        try (RevWalk commits = RevisionWalker.walkAll(git.getRepository(), true)) {
+            processCommits(commits, bugTickets, ticketToCommitsMap, matchedTickets, repoPath, fixMessages);
+        }
+        if (fixMessages != null) {
+            fixMessages.seal();
         }
 
         return ticketToCommitsMap;
@@ -54,11 +65,13 @@ public class BugCommitMatcher {
             Map<String, TicketInfo> bugTickets,
             Map<String, TicketInfo> ticketToCommitsMap,
             Set<String> matchedTickets,
-            String repoPath) {
+            String repoPath,
+            FixCommitStore fixMessages) throws IOException {
 
         for (RevCommit commit : commits) {
 
             String commitMessage = commit.getFullMessage().toLowerCase();
+            CommitRef ref = null;
 
             for (Map.Entry<String, TicketInfo> entry : bugTickets.entrySet()) {
                 String ticketId = entry.getKey();
@@ -81,9 +94,15 @@ public class BugCommitMatcher {
 
                 if (isDirectMatch || isHeuristicMatch) {
                     System.out.println("Associazione trovata: " + ticketId + " <-- " + commit.getName());
-                    addCommitToTicket(ticketToCommitsMap, matchedTickets, ticketId, commit);
+                    if (ref == null) {
+                        ref = fixMessages != null ? CommitRef.withoutMessage(commit) : CommitRef.of(commit);
+                        if (fixMessages != null) fixMessages.add(commit);
+                    }
+                    addCommitToTicket(ticketToCommitsMap, matchedTickets, ticketId, ref);
                 }
             }
+            // Il RevWalk conserva tutti i commit visitati: senza il corpo l'occupazione resta piccola
+            commit.disposeBody();
         }
     }
 
@@ -92,7 +111,7 @@ public class BugCommitMatcher {
             Map<String, TicketInfo> ticketToCommitsMap,
             Set<String> matchedTickets,
             String ticketId,
-            RevCommit commit) {
+            CommitRef commit) {
 
         if (ticketToCommitsMap.containsKey(ticketId)) {
             ticketToCommitsMap.get(ticketId).addAssociatedCommit(commit);
@@ -163,7 +182,7 @@ public class BugCommitMatcher {
             String ticketId = entry.getKey();
             TicketInfo ticket = entry.getValue();
             System.out.println("Ticket: " + ticketId);
-            for (RevCommit commit : ticket.getAssociatedCommits()) {
+            for (CommitRef commit : ticket.getAssociatedCommits()) {
                 System.out.println("  - Commit: " + commit.getName() + " | " + commit.getShortMessage());
             }
         }
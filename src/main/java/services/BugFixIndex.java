@@ -0,0 +1,235 @@
+package services;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indice immutabile dei commit di fix, costruito una volta dopo BugCommitMatcher e condiviso da tutte le release.
+ *
+ * I commit associati ai ticket sono memorizzati una sola volta (anche se compaiono in più ticket) e ordinati per
+ * commit time; per ogni release è precalcolato con una ricerca binaria il numero di fix visibili (commit time non
+ * successivo alla data della release). Ogni ticket ha OV (release successiva all'apertura), FV (release successiva
+ * alla risoluzione) e IV = FV - P * (FV - OV) come in ProportionAnalyzer, espressi come indici di release; dagli
+ * intervalli [IV, FV) si ricava per ogni release il numero di ticket che la affliggono. Ogni identificatore citato
+ * nel messaggio di un fix è associato una sola volta, in costruzione, al bitmap delle release affette dai ticket
+ * di quel fix: "il metodo è affetto nella release r" è una lettura di bit ({@link #affected}). Nessuna struttura
+ * viene modificata dopo la costruzione, quindi le release possono essere elaborate in qualsiasi ordine e da più
+ * thread.
+ *
+ * In modalità a memoria limitata i riferimenti non hanno messaggio: la ricerca del nome del metodo passa dal
+ * {@link FixCommitStore} (anch'esso ordinato per tempo) e gli identificatori vengono letti con una sua passata.
+ */
+final class BugFixIndex {
+    // Stesso P iniziale di ProportionAnalyzer.getBuggyMethodsByProportion
+    private static final double PROPORTION = 0.5;
+
+    // Date delle release in ordine crescente e, per ogni release del file, la sua posizione in quell'ordine
+    private final long[] releaseMillis;
+    private final int[] fileToDate;
+    private final int[] commitTimes;
+    private final String[] messages;
+    private final int[] visibleFixes;
+    private final int[] affectingTickets;
+    // Identificatore citato nei messaggi dei fix -> release (posizioni per data) affette dai relativi ticket
+    private final Map<String, BitSet> affectedByName;
+    private final FixCommitStore fixMessages;
+
+    private BugFixIndex(long[] releaseMillis, int[] fileToDate, int[] commitTimes, String[] messages,
+                        int[] affectingTickets, Map<String, BitSet> affectedByName, FixCommitStore fixMessages) {
+        this.releaseMillis = releaseMillis;
+        this.fileToDate = fileToDate;
+        this.commitTimes = commitTimes;
+        this.messages = messages;
+        this.affectingTickets = affectingTickets;
+        this.affectedByName = affectedByName;
+        this.fixMessages = fixMessages;
+
+        visibleFixes = new int[releaseMillis.length];
+        for (int r = 0; r < releaseMillis.length; r++) {
+            visibleFixes[r] = upperBound(commitTimes, releaseMillis[r]);
+        }
+    }
+
+    /**
+     * Costruisce l'indice dai ticket (con i commit associati) e dalle release, nell'ordine di VersionInfo.csv;
+     * {@code fixMessages} è lo store della modalità a memoria limitata, altrimenti null.
+     */
+    static BugFixIndex build(Map<String, TicketInfo> ticketCommits, List<MetricExtractor.Release> releases,
+                             FixCommitStore fixMessages) {
+        // OV, IV e FV sono posizioni nell'ordine per data, che può differire dall'ordine del file
+        Integer[] byDate = new Integer[releases.size()];
+        for (int r = 0; r < byDate.length; r++) byDate[r] = r;
+        Arrays.sort(byDate, Comparator.comparing(r -> releases.get(r).date));
+        long[] sortedReleaseMillis = new long[byDate.length];
+        int[] fileToDate = new int[byDate.length];
+        for (int position = 0; position < byDate.length; position++) {
+            sortedReleaseMillis[position] = releases.get(byDate[position]).date.getTime();
+            fileToDate[byDate[position]] = position;
+        }
+
+        // Differenze sugli intervalli [IV, FV): la somma prefissa dà i ticket che affliggono ogni release
+        int[] delta = new int[sortedReleaseMillis.length + 1];
+        Set<CommitRef> fixCommits = new LinkedHashSet<>();
+        // Release affette per commit di fix: unione degli intervalli [IV, FV) dei suoi ticket
+        Map<ObjectId, BitSet> affectedByCommit = new HashMap<>();
+        for (TicketInfo ticket : ticketCommits.values()) {
+            long latestFix = Long.MIN_VALUE;
+            for (CommitRef commit : ticket.getAssociatedCommits()) {
+                fixCommits.add(commit);
+                latestFix = Math.max(latestFix, commit.getCommitTime() * 1000L);
+            }
+            Date fixDate = ticket.getFixDate();
+            Date creationDate = ticket.getCreationDate();
+            int fv = fixDate != null ? releaseAfter(sortedReleaseMillis, fixDate.getTime())
+                    : latestFix != Long.MIN_VALUE ? releaseAfter(sortedReleaseMillis, latestFix) : sortedReleaseMillis.length;
+            int ov = creationDate != null ? Math.min(fv, releaseAfter(sortedReleaseMillis, creationDate.getTime())) : fv;
+            int iv = Math.max(0, (int) Math.floor(fv - PROPORTION * (fv - ov)));
+            delta[iv]++;
+            delta[fv]--;
+            for (CommitRef commit : ticket.getAssociatedCommits()) {
+                affectedByCommit.computeIfAbsent(commit.getId(), c -> new BitSet()).set(iv, fv);
+            }
+        }
+        int[] affectingTickets = new int[sortedReleaseMillis.length];
+        for (int position = 0, open = 0; position < affectingTickets.length; position++) {
+            open += delta[position];
+            affectingTickets[position] = open;
+        }
+
+        List<CommitRef> commits = new ArrayList<>(fixCommits);
+        commits.sort(Comparator.comparingInt(CommitRef::getCommitTime));
+        int[] commitTimes = new int[commits.size()];
+        String[] messages = new String[commits.size()];
+        for (int c = 0; c < commits.size(); c++) {
+            commitTimes[c] = commits.get(c).getCommitTime();
+            messages[c] = commits.get(c).getFullMessage();
+        }
+
+        Map<String, BitSet> affectedByName = new HashMap<>();
+        if (fixMessages != null) {
+            fixMessages.forEach((id, message) -> indexNames(message, affectedByCommit.get(id), affectedByName));
+        } else {
+            for (CommitRef commit : commits) {
+                indexNames(commit.getFullMessage(), affectedByCommit.get(commit.getId()), affectedByName);
+            }
+        }
+
+        return new BugFixIndex(sortedReleaseMillis, fileToDate, commitTimes, messages, affectingTickets,
+                affectedByName, fixMessages);
+    }
+
+    // Aggiunge le release affette dal commit a ogni identificatore Java citato nel suo messaggio
+    private static void indexNames(String message, BitSet affected, Map<String, BitSet> affectedByName) {
+        if (affected == null || affected.isEmpty()) return;
+        int i = 0;
+        while (i < message.length()) {
+            if (!Character.isJavaIdentifierStart(message.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i++;
+            while (i < message.length() && Character.isJavaIdentifierPart(message.charAt(i))) i++;
+            affectedByName.computeIfAbsent(message.substring(start, i), n -> new BitSet()).or(affected);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: java services.BugFixIndex <KEY> <repoDir> <methodName> [<methodName> ...]");
+            return;
+        }
+        String key = args[0].toUpperCase();
+        File repoDir = new File(args[1]);
+        try (Git git = Git.open(new File(repoDir, ".git"))) {
+            FixCommitStore fixMessages = FixCommitStore.fromEnvironment();
+            Map<String, TicketInfo> ticketCommits = BugCommitMatcher.mapTicketsToCommits(
+                    JiraTicketFetcher.fetchFixedBugTickets(key), git, repoDir.getAbsolutePath(), fixMessages);
+            List<MetricExtractor.Release> releases = MetricExtractor.readReleases(MetricExtractor.versionFileName(key));
+            BugFixIndex index = build(ticketCommits, releases, fixMessages);
+
+            System.out.println("Method,ReleaseId,Buggy,Affected");
+            for (int m = 2; m < args.length; m++) {
+                for (int r = 0; r < releases.size(); r++) {
+                    System.out.println(args[m] + "," + releases.get(r).id + ","
+                            + (index.fixedBefore(args[m], r) ? "YES" : "NO") + ","
+                            + (index.affected(args[m], r) ? "YES" : "NO"));
+                }
+            }
+        }
+    }
+
+    int numFixCommits() {
+        return commitTimes.length;
+    }
+
+    /**
+     * Numero di commit di fix visibili alla release {@code release} (indice nell'ordine di VersionInfo.csv).
+     */
+    int fixesVisibleAt(int release) {
+        return visibleFixes[fileToDate[release]];
+    }
+
+    /**
+     * Numero di ticket la cui finestra stimata [IV, FV) comprende la release.
+     */
+    int ticketsAffecting(int release) {
+        return affectingTickets[fileToDate[release]];
+    }
+
+    /**
+     * True se {@code methodName} è citato (come identificatore) nel messaggio di un fix di un ticket la cui
+     * finestra stimata [IV, FV) comprende la release.
+     */
+    boolean affected(String methodName, int release) {
+        BitSet affected = affectedByName.get(methodName);
+        return affected != null && affected.get(fileToDate[release]);
+    }
+
+    /**
+     * True se un fix visibile alla release contiene {@code methodName} nel messaggio (etichetta Buggy).
+     */
+    boolean fixedBefore(String methodName, int release) {
+        if (fixMessages != null) {
+            return fixMessages.containsBefore(methodName, releaseMillis[fileToDate[release]]);
+        }
+        int visible = fixesVisibleAt(release);
+        for (int c = 0; c < visible; c++) {
+            if (messages[c].contains(methodName)) return true;
+        }
+        return false;
+    }
+
+    // Prima release con data non precedente a millis (indice nell'ordine per data)
+    private static int releaseAfter(long[] sortedReleaseMillis, long millis) {
+        int low = 0;
+        int high = sortedReleaseMillis.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedReleaseMillis[mid] < millis) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    // Numero di commit con commit time (secondi) non successivo a millis
+    private static int upperBound(int[] commitTimes, long millis) {
+        int low = 0;
+        int high = commitTimes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (commitTimes[mid] * 1000L <= millis) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+}
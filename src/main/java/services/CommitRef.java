@@ -0,0 +1,73 @@
+package services;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+/**
+ * Riferimento compatto a un commit: id, commit time e (se richiesto) messaggio. A differenza di un RevCommit
+ * non tiene in vita i parent, quindi la storia visitata dal RevWalk e i relativi buffer, e può essere
+ * conservato per tutta l'esecuzione. Per diff o parent il commit va riletto dall'id.
+ */
+public final class CommitRef {
+    private final ObjectId id;
+    private final int commitTime;
+    private final String message;
+
+    private CommitRef(ObjectId id, int commitTime, String message) {
+        this.id = id;
+        this.commitTime = commitTime;
+        this.message = message;
+    }
+
+    public static CommitRef of(RevCommit commit) {
+        return new CommitRef(commit.copy(), commit.getCommitTime(), commit.getFullMessage());
+    }
+
+    // Senza messaggio: usato quando i messaggi sono raccolti in un FixCommitStore
+    public static CommitRef withoutMessage(RevCommit commit) {
+        return new CommitRef(commit.copy(), commit.getCommitTime(), null);
+    }
+
+    public ObjectId getId() {
+        return id;
+    }
+
+    public String getName() {
+        return id.getName();
+    }
+
+    // Secondi dall'epoch, come RevCommit.getCommitTime()
+    public int getCommitTime() {
+        return commitTime;
+    }
+
+    public boolean hasMessage() {
+        return message != null;
+    }
+
+    public String getFullMessage() {
+        return message != null ? message : "";
+    }
+
+    // Primo paragrafo del messaggio su una riga, come RevCommit.getShortMessage()
+    public String getShortMessage() {
+        String full = getFullMessage();
+        int end = full.indexOf("\n\n");
+        return (end < 0 ? full : full.substring(0, end)).replace('\n', ' ').trim();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CommitRef ref && id.equals(ref.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return id.getName();
+    }
+}
@@ -0,0 +1,500 @@
+package services;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Motore di trasformazione in streaming dei CSV di metriche: legge l'input una sola volta e scrive più output,
+ * ciascuno con il proprio filtro sulle righe e le proprie trasformazioni di colonna (valore costante, valore
+ * calcolato, colonna rimossa). Una riga può finire in più output.
+ *
+ * L'input viene letto a blocchi in un buffer di byte; ogni blocco, tagliato a fine riga, viene diviso in chunk
+ * elaborati in parallelo e gli output dei chunk vengono scritti nell'ordine originale. Le righe non vengono
+ * convertite in String[]: i campi sono offset nel buffer e le colonne non trasformate vengono copiate così come
+ * sono. Sono supportati i campi tra doppi apici con virgole, non gli a capo dentro un campo.
+ *
+ * Uso: {@code DatasetTransformer <A.csv> <outputDir> [--threads <n>]} genera B+.csv, B.csv e C.csv in una passata.
+ */
+public class DatasetTransformer {
+    private static final int BLOCK_SIZE = 8 << 20;
+    // Sotto questa dimensione un chunk non vale il passaggio a un altro thread
+    private static final int MIN_CHUNK_SIZE = 256 << 10;
+    private static final String THREADS_OPTION = "--threads";
+
+    /**
+     * Filtro sulle righe di un output.
+     */
+    @FunctionalInterface
+    public interface RowFilter {
+        boolean test(Row row);
+    }
+
+    /**
+     * Valore calcolato di una colonna a partire dalla riga di input.
+     */
+    @FunctionalInterface
+    public interface ColumnFunction {
+        String apply(Row row);
+    }
+
+    /**
+     * Riga corrente come offset dei campi nel buffer di lettura; valida solo durante la chiamata che la riceve.
+     */
+    public static final class Row {
+        private byte[] buffer;
+        private int[] starts;
+        private int[] ends;
+        private int numFields;
+
+        Row(int numColumns) {
+            starts = new int[numColumns];
+            ends = new int[numColumns];
+        }
+
+        public int numFields() {
+            return numFields;
+        }
+
+        /**
+         * Valore del campo, senza gli eventuali doppi apici.
+         */
+        public String field(int column) {
+            int start = starts[column];
+            int end = ends[column];
+            if (end - start >= 2 && buffer[start] == '"' && buffer[end - 1] == '"') {
+                String quoted = new String(buffer, start + 1, end - start - 2, StandardCharsets.UTF_8);
+                return quoted.replace("\"\"", "\"");
+            }
+            return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Confronto del campo (senza spazi iniziali e finali) con un valore, senza creare String per i valori ASCII.
+         */
+        public boolean fieldEquals(int column, String value) {
+            int start = starts[column];
+            int end = ends[column];
+            while (start < end && buffer[start] == ' ') start++;
+            while (end > start && buffer[end - 1] == ' ') end--;
+            if (end - start != value.length()) {
+                return !isAscii(value) && field(column).trim().equals(value);
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (buffer[start + i] != value.charAt(i)) {
+                    return !isAscii(value) && field(column).trim().equals(value);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Valore numerico del campo; NaN se vuoto, "?" o non numerico. Gli interi vengono letti senza creare String.
+         */
+        public double number(int column) {
+            int start = starts[column];
+            int end = ends[column];
+            if (start == end) return Double.NaN;
+            int i = start;
+            boolean negative = buffer[i] == '-';
+            if (negative || buffer[i] == '+') i++;
+            long value = 0;
+            int digits = 0;
+            while (i < end && buffer[i] >= '0' && buffer[i] <= '9' && digits < 18) {
+                value = value * 10 + (buffer[i++] - '0');
+                digits++;
+            }
+            if (i == end && digits > 0) {
+                return negative ? -value : value;
+            }
+            try {
+                return Double.parseDouble(field(column).trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        private static boolean isAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) > 0x7F) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Output dichiarato: file di destinazione, filtro e trasformazioni di colonna.
+     */
+    public final class Output {
+        private final File file;
+        private RowFilter filter;
+        private final byte[][] constants = new byte[header.size()][];
+        private final ColumnFunction[] functions = new ColumnFunction[header.size()];
+        private final boolean[] dropped = new boolean[header.size()];
+        private boolean transformed;
+
+        private Output(File file) {
+            this.file = file;
+        }
+
+        /**
+         * Tiene solo le righe che soddisfano il filtro; più chiamate si combinano in AND.
+         */
+        public Output where(RowFilter rowFilter) {
+            RowFilter previous = filter;
+            filter = previous == null ? rowFilter : row -> previous.test(row) && rowFilter.test(row);
+            return this;
+        }
+
+        public Output set(int column, String value) {
+            constants[column] = quote(value).getBytes(StandardCharsets.UTF_8);
+            functions[column] = null;
+            transformed = true;
+            return this;
+        }
+
+        public Output compute(int column, ColumnFunction function) {
+            functions[column] = function;
+            constants[column] = null;
+            transformed = true;
+            return this;
+        }
+
+        public Output drop(int column) {
+            dropped[column] = true;
+            transformed = true;
+            return this;
+        }
+
+        private byte[] headerLine() {
+            List<String> names = new ArrayList<>();
+            for (int c = 0; c < header.size(); c++) {
+                if (!dropped[c]) names.add(header.get(c));
+            }
+            return (String.join(",", names) + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        private void write(Row row, byte[] buffer, int lineStart, int lineEnd, ByteSink sink) {
+            if (!transformed) {
+                sink.write(buffer, lineStart, lineEnd - lineStart);
+                sink.write('\n');
+                return;
+            }
+            boolean first = true;
+            for (int c = 0; c < row.numFields; c++) {
+                if (dropped[c]) continue;
+                if (!first) sink.write(',');
+                first = false;
+                if (constants[c] != null) {
+                    sink.write(constants[c], 0, constants[c].length);
+                } else if (functions[c] != null) {
+                    byte[] value = quote(functions[c].apply(row)).getBytes(StandardCharsets.UTF_8);
+                    sink.write(value, 0, value.length);
+                } else {
+                    sink.write(buffer, row.starts[c], row.ends[c] - row.starts[c]);
+                }
+            }
+            sink.write('\n');
+        }
+    }
+
+    // Buffer di byte espandibile, non sincronizzato (ogni worker ha i propri)
+    private static final class ByteSink {
+        private byte[] data = new byte[64 << 10];
+        private int size;
+
+        void write(int b) {
+            if (size == data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = (byte) b;
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            if (size + length > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, size + length));
+            System.arraycopy(bytes, offset, data, size, length);
+            size += length;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(data, 0, size);
+            size = 0;
+        }
+    }
+
+    // Elabora un intervallo di righe del blocco corrente; riusato tra un blocco e l'altro
+    private final class Worker {
+        private final Row row = new Row(header.size());
+        private final ByteSink[] sinks;
+
+        Worker() {
+            sinks = new ByteSink[outputs.size()];
+            for (int o = 0; o < sinks.length; o++) sinks[o] = new ByteSink();
+        }
+
+        Void process(byte[] buffer, int from, int to, long fileOffset) throws IOException {
+            row.buffer = buffer;
+            int lineStart = from;
+            while (lineStart < to) {
+                int newline = lineStart;
+                while (newline < to && buffer[newline] != '\n') newline++;
+                int lineEnd = newline;
+                if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') lineEnd--;
+                if (lineEnd > lineStart) {
+                    split(buffer, lineStart, lineEnd);
+                    if (row.numFields != header.size()) {
+                        throw new IOException("Riga malformata all'offset " + (fileOffset + lineStart) + ": attese "
+                                + header.size() + " colonne, trovate " + row.numFields);
+                    }
+                    for (int o = 0; o < sinks.length; o++) {
+                        Output output = outputs.get(o);
+                        if (output.filter == null || output.filter.test(row)) {
+                            output.write(row, buffer, lineStart, lineEnd, sinks[o]);
+                        }
+                    }
+                }
+                lineStart = newline + 1;
+            }
+            return null;
+        }
+
+        // Offset dei campi della riga; le virgole tra doppi apici non separano
+        private void split(byte[] buffer, int lineStart, int lineEnd) {
+            int count = 0;
+            int fieldStart = lineStart;
+            boolean quoted = false;
+            for (int i = lineStart; i <= lineEnd; i++) {
+                if (i < lineEnd && buffer[i] == '"') {
+                    quoted = !quoted;
+                } else if (i == lineEnd || (buffer[i] == ',' && !quoted)) {
+                    if (count == row.starts.length) {
+                        row.starts = Arrays.copyOf(row.starts, count * 2);
+                        row.ends = Arrays.copyOf(row.ends, count * 2);
+                    }
+                    row.starts[count] = fieldStart;
+                    row.ends[count] = i;
+                    count++;
+                    fieldStart = i + 1;
+                }
+            }
+            row.numFields = count;
+        }
+    }
+
+    private final File input;
+    private final List<String> header;
+    private final long dataOffset;
+    private final List<Output> outputs = new ArrayList<>();
+
+    /**
+     * Legge solo l'header dell'input; i dati vengono letti da {@link #run}.
+     */
+    public DatasetTransformer(File input) throws IOException {
+        this.input = input;
+        byte[] line = readHeader(input);
+        if (line == null) throw new IOException("Empty CSV file: " + input);
+        dataOffset = line.length;
+        int end = line.length;
+        while (end > 0 && (line[end - 1] == '\n' || line[end - 1] == '\r')) end--;
+        header = new ArrayList<>();
+        for (String name : new String(line, 0, end, StandardCharsets.UTF_8).split(",", -1)) {
+            header.add(name.trim());
+        }
+    }
+
+    public List<String> header() {
+        return header;
+    }
+
+    /**
+     * Indice della prima colonna trovata tra i nomi indicati (senza distinzione tra maiuscole e minuscole), -1 se assente.
+     */
+    public int column(String... names) {
+        for (String name : names) {
+            for (int c = 0; c < header.size(); c++) {
+                if (header.get(c).equalsIgnoreCase(name)) return c;
+            }
+        }
+        return -1;
+    }
+
+    public Output output(File file) {
+        Output output = new Output(file);
+        outputs.add(output);
+        return output;
+    }
+
+    /**
+     * Legge l'input una volta e scrive tutti gli output dichiarati.
+     */
+    public void run(int threads) throws IOException {
+        int numWorkers = Math.max(1, threads);
+        List<Worker> workers = new ArrayList<>();
+        for (int w = 0; w < numWorkers; w++) workers.add(new Worker());
+        ExecutorService pool = numWorkers > 1 ? Executors.newFixedThreadPool(numWorkers) : null;
+
+        OutputStream[] streams = new OutputStream[outputs.size()];
+        try (FileChannel channel = FileChannel.open(input.toPath(), StandardOpenOption.READ)) {
+            for (int o = 0; o < streams.length; o++) {
+                streams[o] = new BufferedOutputStream(new FileOutputStream(outputs.get(o).file), 1 << 16);
+                streams[o].write(outputs.get(o).headerLine());
+            }
+            channel.position(dataOffset);
+            byte[] block = new byte[BLOCK_SIZE];
+            int filled = 0;
+            long blockOffset = dataOffset;
+            boolean eof = false;
+            while (!eof) {
+                int read = channel.read(ByteBuffer.wrap(block, filled, block.length - filled));
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    filled += read;
+                    if (filled < block.length) continue;
+                }
+                int end = eof ? filled : lastNewline(block, filled) + 1;
+                if (end == 0 && !eof) {
+                    // Riga più lunga del blocco
+                    block = Arrays.copyOf(block, block.length * 2);
+                    continue;
+                }
+                processBlock(block, end, blockOffset, workers, pool, streams);
+                System.arraycopy(block, end, block, 0, filled - end);
+                filled -= end;
+                blockOffset += end;
+            }
+        } finally {
+            if (pool != null) pool.shutdownNow();
+            IOException failure = null;
+            for (OutputStream stream : streams) {
+                if (stream == null) continue;
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    // Divide il blocco in chunk a fine riga, li elabora e scrive gli output nell'ordine dei chunk
+    private void processBlock(byte[] block, int end, long blockOffset, List<Worker> workers, ExecutorService pool,
+                              OutputStream[] streams) throws IOException {
+        int numChunks = pool == null ? 1 : Math.max(1, Math.min(workers.size(), end / MIN_CHUNK_SIZE));
+        int[] bounds = new int[numChunks + 1];
+        for (int k = 1; k < numChunks; k++) {
+            int bound = Math.max(bounds[k - 1], (int) ((long) end * k / numChunks));
+            while (bound < end && block[bound - 1] != '\n') bound++;
+            bounds[k] = bound;
+        }
+        bounds[numChunks] = end;
+
+        if (numChunks == 1) {
+            workers.get(0).process(block, 0, end, blockOffset);
+        } else {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int k = 0; k < numChunks; k++) {
+                Worker worker = workers.get(k);
+                int from = bounds[k];
+                int to = bounds[k + 1];
+                futures.add(pool.submit(() -> worker.process(block, from, to, blockOffset)));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Trasformazione interrotta", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException io) throw io;
+                    if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+                    throw new IOException(e.getCause());
+                }
+            }
+        }
+        for (int k = 0; k < numChunks; k++) {
+            ByteSink[] sinks = workers.get(k).sinks;
+            for (int o = 0; o < streams.length; o++) {
+                sinks[o].writeTo(streams[o]);
+            }
+        }
+    }
+
+    private static int lastNewline(byte[] block, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (block[i] == '\n') return i;
+        }
+        return -1;
+    }
+
+    private static byte[] readHeader(File input) throws IOException {
+        try (InputStream in = new FileInputStream(input)) {
+            byte[] line = new byte[1024];
+            int length = 0;
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (length == line.length) line = Arrays.copyOf(line, length * 2);
+                line[length++] = (byte) b;
+                if (b == '\n') break;
+            }
+            return length == 0 ? null : Arrays.copyOf(line, length);
+        }
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Trasformazioni standard da A.csv: B+ (metodi con smell), B (B+ con Smells azzerato) e C (metodi senza smell).
+     */
+    public static DatasetTransformer standardOutputs(File metricsCsv, File outputDir) throws IOException {
+        DatasetTransformer transformer = new DatasetTransformer(metricsCsv);
+        int smells = transformer.column("Smells", "NSmells");
+        if (smells < 0) throw new IOException("Colonna 'Smells' o 'NSmells' non trovata.");
+        RowFilter noSmell = row -> row.fieldEquals(smells, "0");
+        transformer.output(new File(outputDir, "B+.csv")).where(row -> !noSmell.test(row));
+        transformer.output(new File(outputDir, "B.csv")).where(row -> !noSmell.test(row)).set(smells, "0");
+        transformer.output(new File(outputDir, "C.csv")).where(noSmell);
+        return transformer;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 4) {
+            System.out.println("Usage: java services.DatasetTransformer <A.csv> <outputDir> [--threads <n>]");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length == 4) {
+            if (!THREADS_OPTION.equals(args[2])) {
+                System.out.println("Opzione sconosciuta: " + args[2]);
+                return;
+            }
+            threads = Integer.parseInt(args[3]);
+        }
+        File outputDir = new File(args[1]);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            System.err.println("Impossibile creare la cartella di output: " + outputDir);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        standardOutputs(new File(args[0]), outputDir).run(threads);
+        System.out.println("B+.csv, B.csv e C.csv generati in " + outputDir + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+}
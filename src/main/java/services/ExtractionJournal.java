@@ -0,0 +1,198 @@
+package services;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Giornale delle unità (release, file) completate di un'estrazione, per riprendere un'esecuzione interrotta.
+ *
+ * Vive nella directory {@code <output>.journal}: le righe CSV di ogni unità vengono scritte in un segmento
+ * {@code seg-<n>.csv} (file temporaneo, fsync, rename atomico e fsync della directory) e solo dopo l'unità viene
+ * aggiunta a {@code journal.log}, anch'esso sincronizzato su disco. Un'unità presente nel giornale ha quindi sempre il
+ * proprio segmento completo; una riga troncata da un crash viene scartata alla riapertura e l'unità rifatta.
+ * Le unità senza righe non hanno segmento. Al termine {@link #finish} concatena intestazione e segmenti
+ * nell'ordine del giornale nel CSV finale (anch'esso con rename atomico) e cancella la directory.
+ *
+ * Formato di journal.log, una riga per evento: {@code U<TAB>release<TAB>file<TAB>segmento|-} per un'unità,
+ * {@code R<TAB>release} per una release completata (alla ripresa viene saltata senza checkout).
+ */
+final class ExtractionJournal implements Closeable {
+    private static final String LOG_FILE = "journal.log";
+    private static final String SEGMENT_FORMAT = "seg-%08d.csv";
+    private static final String UNIT = "U";
+    private static final String RELEASE = "R";
+    private static final String NO_SEGMENT = "-";
+
+    private static final Logger LOGGER = Logger.getLogger(ExtractionJournal.class.getName());
+
+    private final File output;
+    private final File directory;
+    private final FileChannel log;
+    private final Set<String> completedUnits = new HashSet<>();
+    private final Set<String> completedReleases = new HashSet<>();
+    private final List<String> segments = new ArrayList<>();
+    private int units;
+
+    private ExtractionJournal(File output, File directory, FileChannel log) {
+        this.output = output;
+        this.directory = directory;
+        this.log = log;
+    }
+
+    /**
+     * Apre (o crea) il giornale del CSV {@code output} e rilegge le unità già completate.
+     */
+    static ExtractionJournal open(File output) throws IOException {
+        File directory = new File(output.getPath() + ".journal");
+        Files.createDirectories(directory.toPath());
+        FileChannel log = FileChannel.open(new File(directory, LOG_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ExtractionJournal journal = new ExtractionJournal(output, directory, log);
+        try {
+            journal.replay();
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    private void replay() throws IOException {
+        String content = new String(Files.readAllBytes(new File(directory, LOG_FILE).toPath()), StandardCharsets.UTF_8);
+        int end = content.lastIndexOf('\n') + 1;
+        for (String line : content.substring(0, end).split("\n")) {
+            String[] fields = line.split("\t", -1);
+            if (fields[0].equals(UNIT) && fields.length == 4) {
+                completedUnits.add(unitKey(fields[1], fields[2]));
+                if (!fields[3].equals(NO_SEGMENT)) segments.add(fields[3]);
+                units++;
+            } else if (fields[0].equals(RELEASE) && fields.length == 2) {
+                completedReleases.add(fields[1]);
+            }
+        }
+        // Coda di una riga scritta a metà: viene eliminata prima di aggiungere altre righe
+        int validBytes = content.substring(0, end).getBytes(StandardCharsets.UTF_8).length;
+        if (validBytes < log.size()) {
+            LOGGER.warning(() -> "Riga incompleta scartata da " + new File(directory, LOG_FILE));
+            log.truncate(validBytes);
+            log.force(true);
+        }
+        log.position(validBytes);
+        if (units > 0) {
+            LOGGER.info(() -> String.format("Ripresa da %s: %d unità e %d release già completate",
+                    directory, units, completedReleases.size()));
+        }
+    }
+
+    synchronized boolean isDone(String releaseId, String relativePath) {
+        return completedUnits.contains(unitKey(releaseId, relativePath));
+    }
+
+    synchronized boolean isReleaseDone(String releaseId) {
+        return completedReleases.contains(releaseId);
+    }
+
+    /**
+     * Registra un'unità completata con le sue righe CSV (anche vuote).
+     */
+    synchronized void commit(String releaseId, String relativePath, String rows) throws IOException {
+        String segment = NO_SEGMENT;
+        if (!rows.isEmpty()) {
+            segment = String.format(SEGMENT_FORMAT, units);
+            Path target = new File(directory, segment).toPath();
+            Path temp = new File(directory, segment + ".tmp").toPath();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                write(channel, rows);
+                channel.force(true);
+            }
+            // Un segmento orfano (crash prima della riga di giornale) viene semplicemente sovrascritto
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Il rename deve essere persistente prima che il giornale faccia riferimento al segmento
+            syncDirectory(directory.toPath());
+        }
+        append(UNIT + "\t" + releaseId + "\t" + relativePath + "\t" + segment);
+        completedUnits.add(unitKey(releaseId, relativePath));
+        if (!segment.equals(NO_SEGMENT)) segments.add(segment);
+        units++;
+    }
+
+    synchronized void completeRelease(String releaseId) throws IOException {
+        append(RELEASE + "\t" + releaseId);
+        completedReleases.add(releaseId);
+    }
+
+    /**
+     * Scrive il CSV finale (intestazione e segmenti nell'ordine del giornale) e cancella il giornale.
+     */
+    synchronized void finish(String header) throws IOException {
+        Path temp = new File(output.getPath() + ".tmp").toPath();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            out.write(header.getBytes(StandardCharsets.UTF_8));
+            for (String segment : segments) {
+                Files.copy(new File(directory, segment).toPath(), out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Il giornale si cancella solo quando il CSV finale è persistente
+        syncDirectory(output.getAbsoluteFile().getParentFile().toPath());
+        close();
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+        LOGGER.info(() -> String.format("%d unità (%d segmenti) scritte in %s", units, segments.size(), output));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+
+    private void append(String line) throws IOException {
+        write(log, line + "\n");
+        log.force(false);
+    }
+
+    // fsync della directory per rendere persistenti i rename; non supportato su alcune piattaforme (es. Windows)
+    private static void syncDirectory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException | UnsupportedOperationException e) {
+            LOGGER.fine(() -> "fsync non disponibile per la directory " + dir);
+        }
+    }
+
+    private static void write(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String unitKey(String releaseId, String relativePath) {
+        return releaseId + '\t' + relativePath;
+    }
+}
@@ -1,110 +1,263 @@
 package services;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 
 public class FeatureAImpactAnalyzer {
+    private static final String HEADER_PREFIX = "inst#";
+    private static final String PREDICTIONS_PREFIX = "predictions_";
+
     /**
-     * Punto di ingresso del programma. Confronta le predizioni dei file B+ e B con le etichette reali
-     * contenute in A. Stampa i casi in cui le predizioni di B+ e B differiscono e riporta il totale.
+     * Punto di ingresso del programma. Legge in parallelo, riga per riga, due o più file di predizioni Weka
+     * (es. predictions_B+.txt predictions_B.txt predictions_A.txt), stampa le istanze su cui le predizioni
+     * differiscono e riporta accuratezza e matrice di confusione per file e disaccordi per coppia di file.
+     * La memoria usata non dipende dal numero di istanze.
      */
     public static void main(String[] args) throws IOException {
-        if (args.length < 3) {
-            System.out.println("Usage: java FeatureAImpactAnalyzer <predictions_B+.txt> <predictions_B.txt> <actual_A.txt>");
+        if (args.length < 2) {
+            System.out.println("Usage: java FeatureAImpactAnalyzer <predictions_1.txt> <predictions_2.txt> [<predictions_n.txt> ...]");
             return;
         }
 
-        // Lista delle predizioni dal file B+
-        List<String> linesBplus = readPredictions(args[0]);
-        // Lista delle predizioni dal file B
-        List<String> linesB = readPredictions(args[1]);
-        // Lista dei valori reali dal file A
-        List<String> linesA = readPredictions(args[2]);
+        Comparison comparison = compare(args, System.out);
+        if (comparison != null) {
+            comparison.printSummary(System.out);
+        }
+    }
 
-        if (linesBplus.size() != linesB.size()) {
-            System.out.println("Files have different number of instances.");
-            return;
+    /**
+     * Riga di predizione corrente di un file: indici (1-based, come in Weka) della classe reale e predetta.
+     */
+    private static final class PredictionLine {
+        int instance;
+        int actual;
+        int predicted;
+    }
+
+    /**
+     * Contatori accumulati dal confronto: tutti primitivi, indicizzati per file e per indice di classe.
+     */
+    public static final class Comparison {
+        private final String[] names;
+        private final List<String> labels = new ArrayList<>();
+        private long instances;
+        private long actualMismatches;
+        private final long[] correct;
+        private final long[][] disagreements;
+        private long[][][] confusion;
+
+        Comparison(String[] names) {
+            this.names = names;
+            correct = new long[names.length];
+            disagreements = new long[names.length][names.length];
+            confusion = new long[names.length][0][0];
         }
 
-        int totalInstances = linesBplus.size();
+        public long instances() {
+            return instances;
+        }
 
-        if (linesA.size() != totalInstances) {
-            System.out.println("Mismatch in number of instances between predictions and actuals.");
-            return;
+        public double accuracy(int file) {
+            return instances == 0 ? Double.NaN : (double) correct[file] / instances;
         }
 
-        int differentPredictions = 0;
+        public long disagreements(int first, int second) {
+            return disagreements[Math.min(first, second)][Math.max(first, second)];
+        }
 
-        for (int i = 0; i < totalInstances; i++) {
-            String predictedBplus = extractPrediction(linesBplus.get(i));
-            String predictedB = extractPrediction(linesB.get(i));
-            String actual = extractActual(linesA.get(i));
+        /**
+         * confusion(file)[reale][predetta], con gli indici di classe 0-based.
+         */
+        public long[][] confusion(int file) {
+            return confusion[file];
+        }
 
-            if (!predictedBplus.equalsIgnoreCase(predictedB)) {
-                differentPredictions++;
-                System.out.println("Instance " + (i + 1) + ": B+ predicted " + predictedBplus + ", B predicted " + predictedB + ", Actual: " + actual);
+        private void ensureClasses(int numClasses) {
+            if (confusion[0].length >= numClasses) return;
+            for (int f = 0; f < names.length; f++) {
+                long[][] grown = new long[numClasses][numClasses];
+                for (int a = 0; a < confusion[f].length; a++) {
+                    System.arraycopy(confusion[f][a], 0, grown[a], 0, confusion[f][a].length);
+                }
+                confusion[f] = grown;
             }
         }
 
-        System.out.println("Total Instances Compared: " + totalInstances);
-        System.out.println("Different Predictions: " + differentPredictions);
+        private void label(int classIndex, String line, int labelStart, int labelEnd) {
+            while (labels.size() < classIndex) labels.add("?");
+            if ("?".equals(labels.get(classIndex - 1))) {
+                labels.set(classIndex - 1, line.substring(labelStart, labelEnd));
+            }
+        }
+
+        private String labelOf(int classIndex) {
+            return classIndex > 0 && classIndex <= labels.size() ? labels.get(classIndex - 1) : "?";
+        }
+
+        public void printSummary(PrintStream out) {
+            out.println("Total Instances Compared: " + instances);
+            if (actualMismatches > 0) {
+                out.println("Warning: actual class differs between files on " + actualMismatches + " instances");
+            }
+            for (int f = 0; f < names.length; f++) {
+                out.printf(Locale.US, "%s accuracy: %.4f (%d/%d)%n", names[f], accuracy(f), correct[f], instances);
+                out.println("  Confusion matrix (rows = actual, columns = predicted): " + labels);
+                for (int a = 0; a < confusion[f].length; a++) {
+                    out.println("    " + labelOf(a + 1) + " " + Arrays.toString(confusion[f][a]));
+                }
+            }
+            for (int i = 0; i < names.length; i++) {
+                for (int j = i + 1; j < names.length; j++) {
+                    out.println("Different Predictions " + names[i] + " vs " + names[j] + ": " + disagreements[i][j]);
+                }
+            }
+        }
     }
 
     /**
-     * Legge le predizioni da un file Weka di output. Salta le intestazioni e cattura solo le righe con predizioni.
-     * @param filePath percorso del file .txt contenente le predizioni Weka
-     * @return lista delle righe di predizione rilevanti
+     * Confronta i file di predizione in lockstep. Le istanze con predizioni diverse vengono stampate su
+     * {@code details} (se non null). Restituisce null se i file hanno un numero diverso di istanze.
      */
-    private static List<String> readPredictions(String filePath) throws IOException {
-        List<String> result = new ArrayList<>();
-        boolean capture = false;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().startsWith("inst#")) {
-                    capture = true;
-                    continue;
+    public static Comparison compare(String[] paths, PrintStream details) throws IOException {
+        int n = paths.length;
+        String[] names = new String[n];
+        BufferedReader[] readers = new BufferedReader[n];
+        PredictionLine[] lines = new PredictionLine[n];
+        try {
+            for (int f = 0; f < n; f++) {
+                names[f] = datasetName(paths[f]);
+                readers[f] = Files.newBufferedReader(new File(paths[f]).toPath(), StandardCharsets.UTF_8);
+                skipHeader(readers[f], paths[f]);
+                lines[f] = new PredictionLine();
+            }
+
+            Comparison comparison = new Comparison(names);
+            StringBuilder message = new StringBuilder();
+            while (true) {
+                int available = 0;
+                for (int f = 0; f < n; f++) {
+                    if (nextPrediction(readers[f], lines[f], comparison)) available++;
                 }
-                if (capture && !line.trim().isEmpty()) {
-                    result.add(line);
+                if (available == 0) break;
+                if (available != n) {
+                    System.out.println("Files have different number of instances.");
+                    return null;
                 }
+                comparison.instances++;
+
+                int actual = lines[0].actual;
+                boolean allEqual = true;
+                comparison.ensureClasses(comparison.labels.size());
+                for (int f = 0; f < n; f++) {
+                    PredictionLine line = lines[f];
+                    if (line.actual != actual) comparison.actualMismatches++;
+                    if (line.actual > 0 && line.predicted > 0) {
+                        comparison.confusion[f][line.actual - 1][line.predicted - 1]++;
+                    }
+                    if (line.actual > 0 && line.predicted == line.actual) comparison.correct[f]++;
+                    for (int g = f + 1; g < n; g++) {
+                        if (line.predicted != lines[g].predicted) {
+                            comparison.disagreements[f][g]++;
+                            allEqual = false;
+                        }
+                    }
+                }
+
+                if (!allEqual && details != null) {
+                    message.setLength(0);
+                    message.append("Instance ").append(lines[0].instance).append(':');
+                    for (int f = 0; f < n; f++) {
+                        message.append(' ').append(names[f]).append(" predicted ")
+                                .append(comparison.labelOf(lines[f].predicted)).append(',');
+                    }
+                    message.append(" Actual: ").append(comparison.labelOf(actual));
+                    details.println(message);
+                }
+            }
+            return comparison;
+        } finally {
+            for (BufferedReader reader : readers) {
+                if (reader != null) reader.close();
             }
         }
-        return result;
     }
 
     /**
-     * Estrae la predizione dalla riga data. La predizione è presente nella terza colonna (indice 2).
-     * @param line riga del file Weka
-     * @return classe predetta ("YES" o "NO")
+     * Nome del dataset dal nome del file: predictions_B+.txt diventa B+.
      */
-    private static String extractPrediction(String line) {
-        String[] parts = line.trim().split("\\s+");
-        if (parts.length >= 3) {
-            String prediction = parts[2];
-            if (prediction.contains(":")) {
-                return prediction.split(":")[1];
-            }
-            return prediction;
+    private static String datasetName(String path) {
+        String name = new File(path).getName();
+        if (name.startsWith(PREDICTIONS_PREFIX)) name = name.substring(PREDICTIONS_PREFIX.length());
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * Salta le intestazioni fino alla riga che inizia con "inst#".
+     */
+    private static void skipHeader(BufferedReader reader, String path) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().startsWith(HEADER_PREFIX)) return;
         }
-        return "?";
+        throw new IOException("Intestazione '" + HEADER_PREFIX + "' non trovata in " + path);
     }
 
     /**
-     * Estrae il valore reale (etichetta) dalla riga data. Si trova nella seconda colonna (indice 1).
-     * @param line riga del file Weka
-     * @return classe reale ("YES" o "NO")
+     * Legge la prossima riga di predizione non vuota ("inst# actual predicted [+] prediction") senza regex:
+     * i token vengono individuati scorrendo la riga, le classi "indice:etichetta" lette come interi.
+     * @return false a fine file
      */
-    private static String extractActual(String line) {
-        String[] parts = line.trim().split("\\s+");
-        if (parts.length >= 3) {
-            String actual = parts[1];
-            if (actual.contains(":")) {
-                return actual.split(":")[1];
+    private static boolean nextPrediction(BufferedReader reader, PredictionLine target, Comparison comparison) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) return false;
+        } while (line.isBlank());
+
+        int length = line.length();
+        int position = 0;
+        int token = 0;
+        target.instance = 0;
+        target.actual = 0;
+        target.predicted = 0;
+        while (position < length && token < 3) {
+            while (position < length && Character.isWhitespace(line.charAt(position))) position++;
+            int start = position;
+            while (position < length && !Character.isWhitespace(line.charAt(position))) position++;
+            if (start == position) break;
+            if (token == 0) {
+                target.instance = parseInt(line, start, position);
+            } else {
+                int classIndex = classIndex(line, start, position, comparison);
+                if (token == 1) target.actual = classIndex; else target.predicted = classIndex;
             }
-            return actual;
+            token++;
+        }
+        return true;
+    }
+
+    // "2:YES" -> 2 (registrando l'etichetta); 0 se la classe manca ("?")
+    private static int classIndex(String line, int start, int end, Comparison comparison) {
+        int colon = start;
+        while (colon < end && line.charAt(colon) != ':') colon++;
+        if (colon == end) return 0;
+        int classIndex = parseInt(line, start, colon);
+        if (classIndex > 0) {
+            comparison.label(classIndex, line, colon + 1, end);
+        }
+        return classIndex;
+    }
+
+    private static int parseInt(String line, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char ch = line.charAt(i);
+            if (ch < '0' || ch > '9') return 0;
+            value = value * 10 + (ch - '0');
         }
-        return "?";
+        return value;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,251 @@
+package services;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Messaggi dei commit di fix per la modalità a memoria limitata dell'estrazione (variabile d'ambiente
+ * {@value #ENV_HEAP_MB}, budget in MB per questa struttura).
+ *
+ * I record (commit time, id, messaggio) vengono accumulati in heap fino al budget; oltre, il blocco viene
+ * ordinato per commit time e scritto su disco come run. {@link #seal} fonde le run in un unico file ordinato,
+ * mappato in memoria (fuori heap); se non c'è stato spill i record restano in heap, ordinati. Le ricerche
+ * ({@link #containsBefore}) scorrono i record in ordine di tempo e si fermano al primo successivo alla data;
+ * {@link #forEach} li visita tutti (una passata, usata da BugFixIndex per indicizzare i metodi citati).
+ * Dopo seal la struttura è immutabile e può essere interrogata da più thread.
+ */
+final class FixCommitStore {
+    static final String ENV_HEAP_MB = "EXTRACTION_HEAP_MB";
+    // Stima dell'occupazione di un record oltre ai caratteri del messaggio
+    private static final long RECORD_OVERHEAD = 64;
+    private static final int ID_LENGTH = 20;
+
+    private static final Logger LOGGER = Logger.getLogger(FixCommitStore.class.getName());
+
+    private static final class Entry {
+        final int commitTime;
+        final ObjectId id;
+        final String message;
+
+        Entry(int commitTime, ObjectId id, String message) {
+            this.commitTime = commitTime;
+            this.id = id;
+            this.message = message;
+        }
+    }
+
+    private static final Comparator<Entry> BY_TIME = Comparator.comparingInt(e -> e.commitTime);
+
+    private final long budgetBytes;
+    private final List<Entry> buffer = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private long bufferedBytes;
+    private long records;
+    private boolean sealed;
+    private MappedByteBuffer merged;
+
+    FixCommitStore(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Store con il budget di {@value #ENV_HEAP_MB}, oppure null se la modalità a memoria limitata non è attiva.
+     */
+    static FixCommitStore fromEnvironment() {
+        String megabytes = System.getenv(ENV_HEAP_MB);
+        if (megabytes == null || megabytes.isBlank()) return null;
+        return new FixCommitStore(Long.parseLong(megabytes.trim()) << 20);
+    }
+
+    synchronized void add(RevCommit commit) throws IOException {
+        if (sealed) throw new IllegalStateException("Store già chiuso");
+        String message = commit.getFullMessage();
+        buffer.add(new Entry(commit.getCommitTime(), commit.copy(), message));
+        bufferedBytes += RECORD_OVERHEAD + 2L * message.length();
+        records++;
+        if (bufferedBytes > budgetBytes) {
+            spill();
+        }
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(BY_TIME);
+        File run = File.createTempFile("fixcommits-", ".run");
+        run.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run.toPath())))) {
+            for (Entry entry : buffer) {
+                write(out, entry.commitTime, id(entry.id), entry.message.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        runs.add(run);
+        LOGGER.fine(() -> String.format("Run %s: %d record", run, buffer.size()));
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    /**
+     * Termina l'inserimento: fonde le run (merge a k vie) in un file ordinato mappato in memoria.
+     */
+    synchronized void seal() throws IOException {
+        if (sealed) return;
+        sealed = true;
+        if (runs.isEmpty()) {
+            buffer.sort(BY_TIME);
+            return;
+        }
+        spill();
+
+        File mergedFile = File.createTempFile("fixcommits-", ".sorted");
+        mergedFile.deleteOnExit();
+        List<DataInputStream> inputs = new ArrayList<>();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(mergedFile.toPath())))) {
+            PriorityQueue<RunHead> heads = new PriorityQueue<>(Comparator.comparingInt((RunHead h) -> h.commitTime));
+            for (File run : runs) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.toPath())));
+                inputs.add(in);
+                RunHead head = new RunHead(in);
+                if (head.advance()) heads.add(head);
+            }
+            while (!heads.isEmpty()) {
+                RunHead head = heads.poll();
+                write(out, head.commitTime, head.id, head.message);
+                if (head.advance()) heads.add(head);
+            }
+        } finally {
+            for (DataInputStream in : inputs) {
+                in.close();
+            }
+            for (File run : runs) {
+                Files.deleteIfExists(run.toPath());
+            }
+            runs.clear();
+        }
+        try (FileChannel channel = FileChannel.open(mergedFile.toPath(), StandardOpenOption.READ)) {
+            merged = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        LOGGER.info(() -> String.format("%d messaggi di fix su disco (%d KB) in %s",
+                records, merged.capacity() >> 10, mergedFile));
+    }
+
+    /**
+     * True se almeno un commit con commit time non successivo a {@code untilMillis} contiene {@code text}
+     * nel messaggio.
+     */
+    boolean containsBefore(String text, long untilMillis) {
+        if (!sealed) throw new IllegalStateException("Store non ancora chiuso");
+        if (merged == null) {
+            for (Entry entry : buffer) {
+                if (entry.commitTime * 1000L > untilMillis) return false;
+                if (entry.message.contains(text)) return true;
+            }
+            return false;
+        }
+        // Confronto sui byte UTF-8: equivale a String.contains per testo valido
+        byte[] needle = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer view = merged.duplicate();
+        while (view.hasRemaining()) {
+            int commitTime = view.getInt();
+            view.position(view.position() + ID_LENGTH);
+            int length = view.getInt();
+            if (commitTime * 1000L > untilMillis) return false;
+            if (indexOf(view, view.position(), length, needle)) return true;
+            view.position(view.position() + length);
+        }
+        return false;
+    }
+
+    /**
+     * Visita tutti i record (id del commit e messaggio) in ordine di commit time.
+     */
+    void forEach(BiConsumer<ObjectId, String> action) {
+        if (!sealed) throw new IllegalStateException("Store non ancora chiuso");
+        if (merged == null) {
+            for (Entry entry : buffer) {
+                action.accept(entry.id, entry.message);
+            }
+            return;
+        }
+        ByteBuffer view = merged.duplicate();
+        byte[] id = new byte[ID_LENGTH];
+        while (view.hasRemaining()) {
+            view.getInt();
+            view.get(id);
+            byte[] message = new byte[view.getInt()];
+            view.get(message);
+            action.accept(ObjectId.fromRaw(id), new String(message, StandardCharsets.UTF_8));
+        }
+    }
+
+    long size() {
+        return records;
+    }
+
+    private static boolean indexOf(ByteBuffer haystack, int offset, int length, byte[] needle) {
+        int last = offset + length - needle.length;
+        outer:
+        for (int i = offset; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack.get(i + j) != needle[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static byte[] id(ObjectId id) {
+        byte[] raw = new byte[ID_LENGTH];
+        id.copyRawTo(raw, 0);
+        return raw;
+    }
+
+    private static void write(DataOutputStream out, int commitTime, byte[] id, byte[] message) throws IOException {
+        out.writeInt(commitTime);
+        out.write(id);
+        out.writeInt(message.length);
+        out.write(message);
+    }
+
+    // Record corrente di una run durante il merge
+    private static final class RunHead {
+        private final DataInputStream in;
+        int commitTime;
+        final byte[] id = new byte[ID_LENGTH];
+        byte[] message;
+
+        RunHead(DataInputStream in) {
+            this.in = in;
+        }
+
+        boolean advance() throws IOException {
+            try {
+                commitTime = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            in.readFully(id);
+            message = new byte[in.readInt()];
+            in.readFully(message);
+            return true;
+        }
+    }
+}
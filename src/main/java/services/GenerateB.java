@@ -1,49 +1,26 @@
 package services;
 
-import java.io.*;
-import java.util.*;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+import java.io.File;
+import java.io.IOException;
 
 public class GenerateB {
     public static void main(String[] args) {
         String inputFile = "B+.csv";
         String outputFile = "B.csv";
 
-        try (
-            BufferedReader br = new BufferedReader(new FileReader(inputFile));
-            BufferedWriter bw = new BufferedWriter(new FileWriter(outputFile))
-        ) {
-            String headerLine = br.readLine();
-            if (headerLine == null) {
-                System.err.println("File vuoto.");
-                return;
-            }
-
-            // Scrivi header
-            bw.write(headerLine);
-            bw.newLine();
-
-            String[] headers = headerLine.split(",");
-            int smellIndex = -1;
-
-            for (int i = 0; i < headers.length; i++) {
-                if (headers[i].equalsIgnoreCase("Smells") || headers[i].equalsIgnoreCase("NSmells")) {
-                    smellIndex = i;
-                    break;
-                }
-            }
-
+        try {
+            DatasetTransformer transformer = new DatasetTransformer(new File(inputFile));
+            int smellIndex = transformer.column("Smells", "NSmells");
             if (smellIndex == -1) {
                 System.err.println("Colonna 'Smells' o 'NSmells' non trovata.");
                 return;
             }
-
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(",", -1);
-                values[smellIndex] = "0"; // sovrascrivi il valore di Smells
-                bw.write(String.join(",", values));
-                bw.newLine();
-            }
+            // Sovrascrive il valore di Smells, le altre colonne vengono copiate senza parsing
+            transformer.output(new File(outputFile)).set(smellIndex, "0");
+            transformer.run(Runtime.getRuntime().availableProcessors());
 
             System.out.println("File B.csv generato con successo.");
 
@@ -51,4 +28,20 @@ public class GenerateB {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Versione in memoria: copia del dataset con la colonna Smells (o NSmells) azzerata, come B.csv da B+.csv.
+     */
+    public static Instances zeroSmells(Instances data) {
+        Attribute smells = data.attribute("Smells") != null ? data.attribute("Smells") : data.attribute("NSmells");
+        if (smells == null) {
+            throw new IllegalArgumentException("Colonna 'Smells' o 'NSmells' non trovata.");
+        }
+        Instances copy = new Instances(data, data.numInstances());
+        for (int i = 0; i < data.numInstances(); i++) {
+            copy.add(data.instance(i)); // add() inserisce una copia dell'istanza
+            copy.lastInstance().setValue(smells.index(), 0);
+        }
+        return copy;
+    }
 }
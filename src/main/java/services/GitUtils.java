@@ -1,17 +1,14 @@
 package services;
 
-import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
-import org.eclipse.jgit.treewalk.TreeWalk;
 
 import java.util.*;
 
@@ -34,17 +31,12 @@ public class GitUtils {
                         .setNewTree(newTreeIter)
                         .call();
 
-                JavaParser parser = new JavaParser();
+                AstCache astCache = AstCache.shared();
                 for (DiffEntry diff : diffs) {
                     if (diff.getChangeType() == DiffEntry.ChangeType.MODIFY && diff.getNewPath().endsWith(".java")) {
-                        // Recupera i contenuti dei file dai due commit
-                        String oldContent = getFileContentFromCommit(repository, oldCommit, diff.getOldPath());
-                        String newContent = getFileContentFromCommit(repository, newCommit, diff.getNewPath());
-
-                        if (oldContent == null || newContent == null) continue;
-
-                        CompilationUnit oldCu = parser.parse(oldContent).getResult().orElse(null);
-                        CompilationUnit newCu = parser.parse(newContent).getResult().orElse(null);
+                        // Recupera i contenuti dei file dai due commit (parsati una sola volta per blob)
+                        CompilationUnit oldCu = astCache.getOrParse(repository, diff.getOldId().toObjectId());
+                        CompilationUnit newCu = astCache.getOrParse(repository, diff.getNewId().toObjectId());
 
                         if (oldCu == null || newCu == null) continue;
 
@@ -74,41 +66,25 @@ public class GitUtils {
         return modifiedMethods;
     }
 
-    // Metodo di supporto per estrarre il contenuto di un file da un commit
-    private static String getFileContentFromCommit(Repository repo, RevCommit commit, String path) {
-        try (TreeWalk treeWalk = TreeWalk.forPath(repo, path, commit.getTree())) {
-            if (treeWalk != null) {
-                ObjectId objectId = treeWalk.getObjectId(0);
-                try (ObjectReader reader = repo.newObjectReader()) {
-                    ObjectLoader loader = reader.open(objectId);
-                    return new String(loader.getBytes(), java.nio.charset.StandardCharsets.UTF_8);
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
     public static org.eclipse.jgit.revwalk.RevCommit findMethodIntroductionCommit(String repoPath, String methodSignature, String untilCommitHash) {
-        try (org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.open(new java.io.File(repoPath))) {
-            Iterable<org.eclipse.jgit.revwalk.RevCommit> commits = git.log().add(git.getRepository().resolve(untilCommitHash)).call();
-            com.github.javaparser.JavaParser parser = new com.github.javaparser.JavaParser();
-
-            for (org.eclipse.jgit.revwalk.RevCommit commit : commits) {
-                System.out.println("Controllo commit: " + commit.getName());
-                String treePath = repoPath.replace(".git", "");
-                try (org.eclipse.jgit.treewalk.TreeWalk treeWalk = new org.eclipse.jgit.treewalk.TreeWalk(git.getRepository())) {
-                    treeWalk.addTree(commit.getTree());
-                    treeWalk.setRecursive(true);
-                    while (treeWalk.next()) {
-                        String filePath = treeWalk.getPathString();
-                        org.eclipse.jgit.lib.ObjectId objectId = treeWalk.getObjectId(0);
-                        try (org.eclipse.jgit.lib.ObjectReader reader = git.getRepository().newObjectReader()) {
-                            org.eclipse.jgit.lib.ObjectLoader loader = reader.open(objectId);
-                            byte[] bytes = loader.getBytes();
-                            String content = new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
-                            com.github.javaparser.ast.CompilationUnit cu = parser.parse(content).getResult().orElse(null);
+        try (org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.open(new java.io.File(repoPath));
+             BlobStore blobs = BlobStore.open(git.getRepository())) {
+            AstCache astCache = AstCache.shared();
+
+            // Servono solo id e tree dei commit: visita body-free
+            try (RevWalk commits = RevisionWalker.newWalk(git.getRepository(), false)) {
+                commits.markStart(commits.parseCommit(git.getRepository().resolve(untilCommitHash)));
+                for (org.eclipse.jgit.revwalk.RevCommit commit : commits) {
+                    System.out.println("Controllo commit: " + commit.getName());
+                    String treePath = repoPath.replace(".git", "");
+                    try (org.eclipse.jgit.treewalk.TreeWalk treeWalk = new org.eclipse.jgit.treewalk.TreeWalk(git.getRepository())) {
+                        treeWalk.addTree(commit.getTree());
+                        treeWalk.setRecursive(true);
+                        while (treeWalk.next()) {
+                            String filePath = treeWalk.getPathString();
+                            org.eclipse.jgit.lib.ObjectId objectId = treeWalk.getObjectId(0);
+                            // Lo stesso blob compare in molti commit: viene parsato una sola volta
+                            com.github.javaparser.ast.CompilationUnit cu = astCache.getOrParse(blobs.getRepository(), objectId);
                             if (cu != null) {
                                 for (com.github.javaparser.ast.body.MethodDeclaration method : cu.findAll(com.github.javaparser.ast.body.MethodDeclaration.class)) {
                                     String fullSignature = method.getDeclarationAsString() + method.getBody().map(Object::toString).orElse("");
@@ -134,17 +110,10 @@ public class GitUtils {
     }
 
     //checcato
+    // Commit (da HEAD) con il commit time più recente non successivo a targetDate; visita body-free
     public static RevCommit findNearestCommitBeforeDate(org.eclipse.jgit.api.Git git, Date targetDate) throws Exception {
-        RevCommit nearestCommit = null;
-        for (RevCommit commit : git.log().call()) {
-            Date commitDate = new Date(commit.getCommitTime() * 1000L);
-            if (!commitDate.after(new Date())) {
-                if (nearestCommit == null || commitDate.after(new Date(nearestCommit.getCommitTime() * 1000L))) {
-                    nearestCommit = commit;
-                }
-            }
-        }
-        return nearestCommit;
+        Repository repository = git.getRepository();
+        return RevisionWalker.findLatestCommitBefore(repository, repository.resolve(org.eclipse.jgit.lib.Constants.HEAD), targetDate);
     }
 
     public static void main(String[] args) {
@@ -158,7 +127,8 @@ public class GitUtils {
             if (commit != null) {
                 System.out.println("Commit trovato: " + commit.getName());
                 System.out.println("Data: " + new java.util.Date(commit.getCommitTime() * 1000L));
-                System.out.println("Messaggio: " + commit.getFullMessage());
+                // Il commit della visita body-free non ha messaggio: va riletto
+                System.out.println("Messaggio: " + git.getRepository().parseCommit(commit).getFullMessage());
             } else {
                 System.out.println("Nessun commit trovato prima della data specificata.");
             }
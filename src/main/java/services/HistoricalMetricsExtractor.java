@@ -5,6 +5,8 @@ package services;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
@@ -50,17 +52,14 @@ public class HistoricalMetricsExtractor {
 
         Path relative = repoRoot.relativize(absoluteFile);
         String relativePath = relative.toString().replace(java.io.File.separatorChar, '/');
+        return extract(repo, repo.resolve(Constants.HEAD), relativePath, releaseDate);
+    }
 
-        Iterable<RevCommit> allCommits = git.log()
-                .addPath(relativePath)
-                .call();
-
-        List<RevCommit> commits = new ArrayList<>();
-        for (RevCommit commit : allCommits) {
-            if ((commit.getCommitTime() * 1000L) < releaseDate.getTime()) {
-                commits.add(commit);
-            }
-        }
+    // Come sopra, con il path relativo alla repository e la storia visitata a partire da start (es. il commit
+    // della release): non richiede che il file sia presente nella work tree.
+    public HistoricalMetrics extract(Repository repo, AnyObjectId start, String relativePath, Date releaseDate) throws IOException {
+        // Filtro su path e data applicato direttamente nel RevWalk; serve l'autore, quindi il corpo viene conservato
+        List<RevCommit> commits = RevisionWalker.listCommitsTouching(repo, start, relativePath, releaseDate, true);
 
         int modifications = 0;
         Set<String> uniqueAuthors = new HashSet<>();
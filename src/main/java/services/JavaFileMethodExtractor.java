@@ -10,14 +10,12 @@ import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
-import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -57,14 +55,11 @@ public class JavaFileMethodExtractor {
 
                     try {
                         ObjectId blobId = entry.getNewId().toObjectId();
-                        try (InputStream input = repository.open(blobId).openStream()) {
-                            JavaParser parser = new JavaParser();
-                            CompilationUnit cu = parser.parse(input).getResult().orElse(null);
-                            if (cu != null) {
-                                cu.findAll(MethodDeclaration.class).forEach(method ->
-                                        modifiedMethods.add(method.getDeclarationAsString(false, false, true))
-                                );
-                            }
+                        CompilationUnit cu = AstCache.shared().getOrParse(repository, blobId);
+                        if (cu != null) {
+                            cu.findAll(MethodDeclaration.class).forEach(method ->
+                                    modifiedMethods.add(method.getDeclarationAsString(false, false, true))
+                            );
                         }
                     } catch (Exception e) {
                         // Skip parse error
@@ -107,9 +102,8 @@ public class JavaFileMethodExtractor {
             }
 
             ObjectId blobId = diff.getNewId().toObjectId();
-            try (InputStream input = repository.open(blobId).openStream()) {
-                JavaParser parser = new JavaParser();
-                CompilationUnit cu = parser.parse(input).getResult().orElse(null);
+            try {
+                CompilationUnit cu = AstCache.shared().getOrParse(repository, blobId);
                 if (cu != null) {
                     cu.findAll(MethodDeclaration.class).forEach(method ->
                             modifiedMethods.add(method.getDeclarationAsString(false, false, true))
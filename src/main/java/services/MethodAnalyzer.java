@@ -1,8 +1,7 @@
 package services;
 
-import com.github.javaparser.JavaParser;
-import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import org.eclipse.jgit.api.Git;
@@ -10,36 +9,178 @@ import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * Estrae metriche statiche e storiche solo per i metodi modificati in uno specifico commit.
  */
 public class MethodAnalyzer {
+    private static final String BATCH_OPTION = "--batch";
+    private static final String STDIN_MARKER = "-";
+
     public static void main(String[] args) throws Exception {
         if (args.length != 2) {
             System.err.println("Usage: MethodAnalyzer <commitHash> <methodName>");
+            System.err.println("       MethodAnalyzer --batch <pairs.txt | ->");
             System.exit(1);
         }
         try {
-            extractMetricsFromCommit(args[0], args[1]);
+            if (BATCH_OPTION.equals(args[0])) {
+                extractMetricsFromBatchFile(args[1]);
+            } else {
+                extractMetricsFromCommit(args[0], args[1]);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Coppia (commit, metodo) da analizzare in modalità batch.
+     */
+    public static class MethodQuery {
+        final String commitHash;
+        final String methodName;
+
+        public MethodQuery(String commitHash, String methodName) {
+            this.commitHash = commitHash;
+            this.methodName = methodName;
+        }
+    }
+
     public static void extractMetricsFromCommit(String commitHash, String targetMethodName) throws Exception {
-        // Inline logic from MetricExtractor.getRepoDirectory()
+        extractMetricsFromBatch(List.of(new MethodQuery(commitHash, targetMethodName)), System.out);
+    }
+
+    /**
+     * Legge le coppie (commit, metodo) da file (una per riga, separate da virgola o spazi; "-" per stdin)
+     * e le analizza tutte nella stessa JVM.
+     */
+    public static void extractMetricsFromBatchFile(String pairsPath) throws Exception {
+        try (Git git = Git.open(new File(getRepoDirectory(), ".git"))) {
+            List<MethodQuery> queries;
+            if (STDIN_MARKER.equals(pairsPath)) {
+                queries = readQueries(git.getRepository(),
+                        new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+            } else {
+                try (BufferedReader reader = Files.newBufferedReader(Paths.get(pairsPath), StandardCharsets.UTF_8)) {
+                    queries = readQueries(git.getRepository(), reader);
+                }
+            }
+            extractMetricsInSession(git, queries, System.out);
+        }
+    }
+
+    /**
+     * Legge le coppie (commit, metodo) risolvendo ogni commit sul repository, così anche gli hash
+     * abbreviati (o i ref) diventano hash completi. Le righe malformate o con un commit non risolvibile
+     * vengono segnalate su stderr con il loro numero; solo un header iniziale (es. "CommitHash,Method")
+     * viene saltato in silenzio.
+     */
+    static List<MethodQuery> readQueries(Repository repository, BufferedReader reader) throws IOException {
+        List<MethodQuery> queries = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        boolean first = true;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            String[] tokens = trimmed.split("[,\\s]+");
+            boolean header = first && !tokens[0].matches("[0-9a-fA-F]+");
+            first = false;
+            if (header) continue;
+            if (tokens.length < 2) {
+                System.err.println("Riga " + lineNumber + " ignorata (attesi commit e metodo): " + trimmed);
+                continue;
+            }
+            ObjectId commitId = resolveCommit(repository, tokens[0], lineNumber);
+            if (commitId != null) {
+                queries.add(new MethodQuery(commitId.getName(), tokens[1]));
+            }
+        }
+        return queries;
+    }
+
+    private static ObjectId resolveCommit(Repository repository, String revision, int lineNumber) {
+        try {
+            ObjectId id = repository.resolve(revision + "^{commit}");
+            if (id == null) {
+                System.err.println("Riga " + lineNumber + " ignorata: commit non trovato " + revision);
+            }
+            return id;
+        } catch (IOException | RevisionSyntaxException e) {
+            // AmbiguousObjectException (hash abbreviato con più candidati) è una IOException
+            System.err.println("Riga " + lineNumber + " ignorata: commit non risolvibile " + revision + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Analizza un insieme di coppie (commit, metodo) raggruppandole per commit: per ogni commit il diff
+     * e le liste di edit vengono calcolati una sola volta e ogni file toccato viene parsato una sola volta.
+     * Le righe di metriche vengono scritte su {@code out} man mano che ogni commit è completato.
+     */
+    public static void extractMetricsFromBatch(List<MethodQuery> queries, PrintStream out) throws IOException {
+        try (Git git = Git.open(new File(getRepoDirectory(), ".git"))) {
+            extractMetricsInSession(git, queries, out);
+        }
+    }
+
+    private static void extractMetricsInSession(Git git, List<MethodQuery> queries, PrintStream out) throws IOException {
+        BlobStore blobs = BlobStore.open(git.getRepository());
+        try {
+            extractMetricsFromBatch(git, queries, out);
+        } finally {
+            blobs.close();
+        }
+    }
+
+    /**
+     * Come {@link #extractMetricsFromBatch(List, PrintStream)}, ma su un repository già aperto
+     * (usato dal daemon, che tiene il repository residente tra una richiesta e l'altra).
+     */
+    public static void extractMetricsFromBatch(Git git, List<MethodQuery> queries, PrintStream out) throws IOException {
+        Map<String, Set<String>> methodsByCommit = new LinkedHashMap<>();
+        for (MethodQuery query : queries) {
+            methodsByCommit.computeIfAbsent(query.commitHash, k -> new HashSet<>()).add(query.methodName);
+        }
+
+        try (RevWalk revWalk = new RevWalk(git.getRepository())) {
+            for (Map.Entry<String, Set<String>> entry : methodsByCommit.entrySet()) {
+                try {
+                    analyzeCommit(git, revWalk, entry.getKey(), entry.getValue(), out);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Errore nell'analisi del commit " + entry.getKey() + ": " + e.getMessage());
+                }
+                out.flush();
+            }
+        }
+    }
+
+    static File getRepoDirectory() {
         String ENV_PROJECT_NAME = "PROJECT_NAME";
         String DEFAULT_PROJECT = "bookkeeper_ref";
         String ENV_REPO_BASE = "REPO_BASE";
@@ -48,94 +189,80 @@ public class MethodAnalyzer {
         String projectName = System.getenv().getOrDefault(ENV_PROJECT_NAME, DEFAULT_PROJECT);
         String basePath = System.getenv().getOrDefault(ENV_REPO_BASE, DEFAULT_REPO_BASE);
         String repoPath = basePath + String.format(REPO_SUBFOLDER_FORMAT, projectName, projectName);
-        File repoDir = new File(repoPath);
-        try (Git git = Git.open(new File(repoDir, ".git"))) {
-            Repository repository = git.getRepository();
-            RevWalk revWalk = new RevWalk(repository);
-            RevCommit commit = revWalk.parseCommit(ObjectId.fromString(commitHash));
-            if (commit.getParentCount() == 0) {
-                System.err.println("Commit has no parent (root commit), nothing to diff.");
-                return;
-            }
-            RevCommit parent = revWalk.parseCommit(commit.getParent(0).getId());
-
-            // Trova i file modificati .java
-            List<DiffEntry> diffs;
-            try (DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
-                df.setRepository(repository);
-                df.setDetectRenames(true);
-                diffs = df.scan(parent.getTree(), commit.getTree());
-            }
+        return new File(repoPath);
+    }
 
-            JavaParser parser = new JavaParser();
+    private static void analyzeCommit(Git git, RevWalk revWalk, String commitHash,
+                                      Set<String> targetMethodNames, PrintStream out) throws IOException {
+        Repository repository = git.getRepository();
+        RevCommit commit = revWalk.parseCommit(ObjectId.fromString(commitHash));
+        if (commit.getParentCount() == 0) {
+            System.err.println("Commit has no parent (root commit), nothing to diff: " + commitHash);
+            return;
+        }
+        RevCommit parent = revWalk.parseCommit(commit.getParent(0).getId());
+
+        try (DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            df.setRepository(repository);
+            df.setDetectRenames(true);
+            // Trova i file modificati .java (un solo scan con rename detection per commit)
+            List<DiffEntry> diffs = df.scan(parent.getTree(), commit.getTree());
+            Map<String, List<Edit>> editsByPath = new HashMap<>();
+            for (DiffEntry diff : diffs) {
+                String path = diff.getChangeType() == ChangeType.DELETE ? diff.getOldPath() : diff.getNewPath();
+                editsByPath.computeIfAbsent(path, k -> new ArrayList<>()).addAll(df.toFileHeader(diff).toEditList());
+            }
 
+            Map<String, Long> tslcByPath = new HashMap<>();
+            Set<String> parsedPaths = new HashSet<>();
+            List<MethodDeclaration> matchedMethods = new ArrayList<>();
+            List<String> matchedPaths = new ArrayList<>();
             for (DiffEntry diff : diffs) {
-                String path = null;
-                if (diff.getChangeType() == ChangeType.DELETE) {
-                    path = diff.getOldPath();
-                } else {
-                    path = diff.getNewPath();
-                }
-                if (!path.endsWith(".java")) continue;
-                // Recupera contenuto file dal commit (o parent per DELETE)
-                String fileContent = readFileContentFromTree(repository,
-                        diff.getChangeType() == ChangeType.DELETE ? parent : commit, path);
-                if (fileContent == null) continue;
-
-                ParseResult<CompilationUnit> parseResult = parser.parse(fileContent);
-                if (!parseResult.isSuccessful() || parseResult.getResult().isEmpty()) continue;
-                CompilationUnit cu = parseResult.getResult().get();
-
-                // Per ogni metodo, verifica se modificato in questo commit
-                List<MethodDeclaration> methods = cu.findAll(MethodDeclaration.class);
-                for (MethodDeclaration method : methods) {
-                    if (!method.getNameAsString().equals(targetMethodName)) continue;
-                    int methodStart = method.getBegin().map(pos -> pos.line).orElse(-1);
-                    int methodEnd = method.getEnd().map(pos -> pos.line).orElse(-1);
-                    // Prende gli edit per questo file
-                    List<Edit> edits = getEditsForFile(repository, parent, commit, path);
-                    boolean methodModified = false;
-                    for (Edit edit : edits) {
-                        int editStart = edit.getBeginB();
-                        int editEnd = edit.getEndB();
-                        if (editEnd >= methodStart && editStart <= methodEnd) {
-                            methodModified = true;
-                            break;
-                        }
-                    }
-                    if (!methodModified) continue;
-                    // Calcola metriche e stampa
-                    computeAndPrintMetrics(method, path, commit, git);
+                String path = diff.getChangeType() == ChangeType.DELETE ? diff.getOldPath() : diff.getNewPath();
+                if (!path.endsWith(".java") || !parsedPaths.add(path)) continue;
+                // Recupera contenuto file dal commit (o parent per DELETE), parsato una volta per blob
+                ObjectId blobId = (diff.getChangeType() == ChangeType.DELETE ? diff.getOldId() : diff.getNewId()).toObjectId();
+                CompilationUnit cu = AstCache.shared().getOrParse(repository, blobId);
+                if (cu == null || cu.getParsed() != Node.Parsedness.PARSED) continue;
+
+                // Per ogni metodo richiesto, verifica se modificato in questo commit
+                List<Edit> edits = editsByPath.getOrDefault(path, List.of());
+                for (MethodDeclaration method : cu.findAll(MethodDeclaration.class)) {
+                    if (!targetMethodNames.contains(method.getNameAsString())) continue;
+                    if (!isModifiedBy(method, edits)) continue;
+                    // TSLC: giorni dal commit precedente su questo file (una volta per path)
+                    tslcByPath.computeIfAbsent(path, p -> calcTSLC(p, commit, git));
+                    matchedMethods.add(method);
+                    matchedPaths.add(path);
                 }
             }
-        }
-    }
 
-    private static String readFileContentFromTree(Repository repo, RevCommit commit, String path) throws IOException {
-        try (org.eclipse.jgit.treewalk.TreeWalk treeWalk = org.eclipse.jgit.treewalk.TreeWalk.forPath(repo, path, commit.getTree())) {
-            if (treeWalk == null) return null;
-            ObjectId objectId = treeWalk.getObjectId(0);
-            try (org.eclipse.jgit.lib.ObjectReader reader = repo.newObjectReader()) {
-                byte[] bytes = reader.open(objectId).getBytes();
-                return new String(bytes);
+            // Smell PMD di tutti i metodi del commit in un'unica analisi in-process
+            List<String> sources = new ArrayList<>();
+            for (MethodDeclaration method : matchedMethods) {
+                sources.add(method.toString());
+            }
+            int[] smells = PmdSmellCounter.countSmells(sources);
+
+            // Calcola metriche e stampa
+            for (int i = 0; i < matchedMethods.size(); i++) {
+                String path = matchedPaths.get(i);
+                computeAndPrintMetrics(matchedMethods.get(i), path, commit, smells[i], tslcByPath.get(path), out);
             }
         }
     }
 
-    private static List<Edit> getEditsForFile(Repository repo, RevCommit parent, RevCommit commit, String path) throws IOException {
-        List<Edit> edits = new ArrayList<>();
-        try (DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
-            df.setRepository(repo);
-            df.setDetectRenames(true);
-            List<DiffEntry> diffs = df.scan(parent.getTree(), commit.getTree());
-            for (DiffEntry diff : diffs) {
-                String diffPath = diff.getChangeType() == ChangeType.DELETE ? diff.getOldPath() : diff.getNewPath();
-                if (diffPath.equals(path)) {
-                    edits.addAll(df.toFileHeader(diff).toEditList());
-                }
+    private static boolean isModifiedBy(MethodDeclaration method, List<Edit> edits) {
+        int methodStart = method.getBegin().map(pos -> pos.line).orElse(-1);
+        int methodEnd = method.getEnd().map(pos -> pos.line).orElse(-1);
+        for (Edit edit : edits) {
+            int editStart = edit.getBeginB();
+            int editEnd = edit.getEndB();
+            if (editEnd >= methodStart && editStart <= methodEnd) {
+                return true;
             }
         }
-        return edits;
+        return false;
     }
 
     // Methods reimplemented locally, no longer depend on MetricExtractor private methods.
@@ -164,27 +291,8 @@ public class MethodAnalyzer {
         }
         return max;
     }
-    private static int countPMDSmells(String code) {
-        try {
-            File tempFile = File.createTempFile("pmd_temp", ".java");
-            Files.writeString(tempFile.toPath(), code);
-            ProcessBuilder pb = new ProcessBuilder(
-                "/Users/colaf/Downloads/pmd-bin-7.14.0/bin/pmd", "check",
-                "--dir", tempFile.getAbsolutePath(),
-                "--rulesets", "rulesets/java/quickstart.xml",
-                "--format", "text"
-            );
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-            String output = new String(process.getInputStream().readAllBytes());
-            tempFile.delete();
-            return (int) output.lines().filter(line -> line.contains(tempFile.getName())).count();
-        } catch (Exception e) {
-            return -1;
-        }
-    }
-
-    private static void computeAndPrintMetrics(MethodDeclaration method, String filePath, RevCommit commit, Git git) {
+    private static void computeAndPrintMetrics(MethodDeclaration method, String filePath, RevCommit commit, int smells,
+                                               long tslc, PrintStream out) {
         String methodName = method.getNameAsString();
         int paramCount = method.getParameters().size();
         int loc = method.toString().split("\n").length;
@@ -192,14 +300,11 @@ public class MethodAnalyzer {
         int cyclomatic = countCyclomaticComplexity(method);
         int nesting = countMaxNestingDepth(method);
         int cognitive = cyclomatic + nesting;
-        int smells = countPMDSmells(method.toString());
         int nameLength = methodName.length();
         int fanOut = method.findAll(MethodCallExpr.class).size();
-        // TSLC: giorni dal commit precedente su questo file
-        long tslc = calcTSLC(filePath, commit, git);
         // Buggy: non rilevante per singolo commit
         boolean buggy = false;
-        System.out.printf(
+        out.printf(
                 "Method: %s | LOC: %d | Params: %d | Statements: %d | Cyclomatic: %d | Nesting: %d | Cognitive: %d | Smells: %d | NameLen: %d | TSLC: %d | FanOut: %d | File: %s | Commit: %s%n",
                 methodName, loc, paramCount, statements, cyclomatic, nesting, cognitive, smells, nameLength, tslc, fanOut, filePath, commit.getName()
         );
@@ -208,14 +313,14 @@ public class MethodAnalyzer {
     private static long calcTSLC(String filePath, RevCommit commit, Git git) {
         try {
             String relPath = filePath.replace("\\", "/");
-            Iterable<RevCommit> commits = git.log().addPath(relPath).call();
-            Date commitDate = commit.getAuthorIdent().getWhen();
-            for (RevCommit c : commits) {
-                Date cDate = c.getAuthorIdent().getWhen();
-                if (cDate.before(commitDate)) {
-                    long diffMillis = commitDate.getTime() - cDate.getTime();
-                    return diffMillis / (1000 * 60 * 60 * 24);
-                }
+            Repository repository = git.getRepository();
+            long commitMillis = commit.getAuthorIdent().getWhen().getTime();
+            // Ultima modifica del file con data d'autore strettamente precedente (le date d'autore sono in secondi)
+            RevCommit previous = RevisionWalker.findLastChange(repository,
+                    repository.resolve(Constants.HEAD), relPath, new Date(commitMillis - 1));
+            if (previous != null) {
+                long diffMillis = commitMillis - previous.getAuthorIdent().getWhen().getTime();
+                return diffMillis / (1000 * 60 * 60 * 24);
             }
         } catch (Exception e) {
             // ignora
@@ -5,13 +5,13 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import net.sourceforge.pmd.PMDConfiguration;
-import net.sourceforge.pmd.PmdAnalysis;
-import net.sourceforge.pmd.lang.LanguageRegistry;
-import net.sourceforge.pmd.lang.LanguageVersion;
-import net.sourceforge.pmd.lang.rule.RuleSetLoader;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
 
 import java.io.*;
 import java.nio.file.*;
@@ -64,12 +64,22 @@ public class MetricExtractor {
         try (Git git = Git.open(new File(repoDir, ".git"))) {
             Map<String, TicketInfo> bugTickets = JiraTicketFetcher.fetchFixedBugTickets(projectName.toUpperCase());
             String repoPath = repoDir.getAbsolutePath();
-            Map<String, TicketInfo> ticketCommits = BugCommitMatcher.mapTicketsToCommits(bugTickets, git, repoPath);
+            // Con EXTRACTION_HEAP_MB i messaggi dei fix vanno in uno store limitato che può scrivere su disco
+            FixCommitStore fixMessages = FixCommitStore.fromEnvironment();
+            Map<String, TicketInfo> ticketCommits = BugCommitMatcher.mapTicketsToCommits(bugTickets, git, repoPath, fixMessages);
 
             JavaParser parser = new JavaParser();
             HistoricalMetricsExtractor historicalExtractor = new HistoricalMetricsExtractor();
 
-            processReleases(projectName, repoDir, git, parser, historicalExtractor, ticketCommits);
+            List<Release> releases = readReleases(versionFileName(projectName));
+            BugFixIndex fixIndex = BugFixIndex.build(ticketCommits, releases, fixMessages);
+
+            BlobStore blobs = BlobStore.open(git.getRepository());
+            try {
+                processReleases(projectName, releases, repoDir, git, parser, historicalExtractor, fixIndex);
+            } finally {
+                blobs.close();
+            }
         } catch (IOException e) {
             throw new MetricExtractionException("Errore durante l'apertura della repository Git", e);
         } catch (Exception e) {
@@ -79,65 +89,89 @@ public class MetricExtractor {
 
     private static void processReleases(
             String projectName,
+            List<Release> releases,
             File repoDir,
             Git git,
             JavaParser parser,
             HistoricalMetricsExtractor historicalExtractor,
-            Map<String, TicketInfo> ticketCommits
+            BugFixIndex fixIndex
     ) throws MetricExtractionException {
-        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        String versionFilePath = projectName.toUpperCase() + VERSION_INFO_SUFFIX;
-        // Permette di distinguere tra CSV "old" e "new" tramite CSV_SUFFIX
-        String suffix = CSV_SUFFIX;
-        String metricsFilePath = METRICS_FILE_PREFIX + projectName.toLowerCase() + suffix + METRICS_FILE_SUFFIX;
+        // Le unità completate restano nel giornale: un'esecuzione interrotta riparte da dove si era fermata
+        try (ExtractionJournal journal = ExtractionJournal.open(new File(metricsFileName(projectName)))) {
+            for (int releaseIndex = 0; releaseIndex < releases.size(); releaseIndex++) {
+                String releaseId = releases.get(releaseIndex).id;
+                Date releaseDate = releases.get(releaseIndex).date;
+                if (journal.isReleaseDone(releaseId)) continue;
+
+                RevCommit releaseCommit = findReleaseCommit(git, releaseDate);
+                if (releaseCommit != null) {
+                    boolean checkedOut = checkoutCommit(git, releaseCommit);
+                    // Blob id dei sorgenti della release: chiave della cache AST condivisa
+                    Map<String, ObjectId> blobIds = checkedOut ? listBlobIds(git, releaseCommit) : Map.of();
+                    processJavaFiles(repoDir, parser, git,
+                            new ReleaseContext(releaseDate, releaseId, releaseIndex, fixIndex, releaseCommit),
+                            blobIds, historicalExtractor, journal);
+                    journal.completeRelease(releaseId);
+                    int index = releaseIndex;
+                    LOGGER.info(() -> String.format("Release %s completata (%d fix visibili, %d ticket aperti) - %s %s",
+                            releaseId, fixIndex.fixesVisibleAt(index), fixIndex.ticketsAffecting(index),
+                            AstCache.shared(), BlobStore.cacheStats()));
+                } else {
+                    LOGGER.warning(() -> String.format("No commit found for release %s", releaseId));
+                }
+            }
+
+            StringWriter header = new StringWriter();
+            writeMetricsHeader(new PrintWriter(header, true));
+            journal.finish(header.toString());
+        } catch (Exception e) {
+            throw new MetricExtractionException("Errore durante l'estrazione delle metriche", e);
+        }
+    }
 
-        try (
-                BufferedReader versionReader = new BufferedReader(new FileReader(versionFilePath));
-                PrintWriter writer = new PrintWriter(new FileWriter(metricsFilePath, false))
-        ) {
-            writeMetricsHeader(writer);
+    // Permette di distinguere tra CSV "old" e "new" tramite CSV_SUFFIX
+    static String metricsFileName(String projectName) {
+        return METRICS_FILE_PREFIX + projectName.toLowerCase() + CSV_SUFFIX + METRICS_FILE_SUFFIX;
+    }
 
-            versionReader.readLine();
+    static String versionFileName(String projectName) {
+        return projectName.toUpperCase() + VERSION_INFO_SUFFIX;
+    }
+
+    static final class Release {
+        final String id;
+        final Date date;
+
+        Release(String id, Date date) {
+            this.id = id;
+            this.date = date;
+        }
+    }
 
-            // Leggi le versioni dal file CSV
+    /**
+     * Release elencate nel file VersionInfo.csv (prodotto da ReleaseInfoFetcher), nell'ordine del file.
+     */
+    static List<Release> readReleases(String versionFilePath) throws IOException, java.text.ParseException {
+        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        List<Release> releases = new ArrayList<>();
+        try (BufferedReader versionReader = new BufferedReader(new FileReader(versionFilePath))) {
+            versionReader.readLine();
             String line;
             while ((line = versionReader.readLine()) != null) {
                 String[] tokens = line.split(CSV_DELIMITER);
                 if (tokens.length >= 4) {
-                    String releaseId = tokens[2].trim();
-                    String dateStr = tokens[3].split("T")[0];
-                    Date releaseDate = sdf.parse(dateStr);
-
-                    filterTicketCommitsByDate(ticketCommits, releaseDate);
-
-                    RevCommit releaseCommit = findReleaseCommit(git, releaseDate);
-                    if (releaseCommit != null) {
-                        checkoutCommit(git, releaseCommit);
-                        processJavaFiles(repoDir, parser, git,
-                                new ReleaseContext(releaseDate, releaseId, ticketCommits),
-                                historicalExtractor, writer);
-                    } else {
-                        LOGGER.warning(() -> String.format("No commit found for release %s", releaseId));
-                    }
+                    releases.add(new Release(tokens[2].trim(), sdf.parse(tokens[3].split("T")[0])));
                 }
             }
-        } catch (Exception e) {
-            throw new MetricExtractionException("Errore durante l'estrazione delle metriche", e);
         }
+        return releases;
     }
 
-    private static void writeMetricsHeader(PrintWriter writer) {
+    static void writeMetricsHeader(PrintWriter writer) {
         writer.println("Method,ReleaseId,LOC,ParamCount,Statements,Cyclomatic,Nesting,Cognitive,Smells," +
                 "Modifications,Authors,NameLength,TSLC,FanOut,Buggy,File,CommitHash");
     }
 
-    private static void filterTicketCommitsByDate(Map<String, TicketInfo> ticketCommits, Date releaseDate) {
-        ticketCommits.forEach((ticket, ticketInfo) -> {
-            Set<RevCommit> commits = ticketInfo.getAssociatedCommits();
-            commits.removeIf(c -> c.getCommitTime() * 1000L > releaseDate.getTime());
-        });
-    }
-
     private static RevCommit findReleaseCommit(Git git, Date releaseDate) throws Exception {
         // Rimuove file problematici prima del checkout, se presenti
         File repoDir = git.getRepository().getWorkTree();
@@ -146,40 +180,57 @@ public class MetricExtractor {
             Files.delete(fileToRemove);
         }
         git.checkout().setName(MASTER_BRANCH).setForced(true).call();
-        RevCommit bestCommit = null;
 
-        for (RevCommit commit : git.log().call()) {
-            Date commitDate = commit.getAuthorIdent().getWhen();
-            if ((commitDate.before(releaseDate) || commitDate.equals(releaseDate)) &&
-                    (bestCommit == null || commitDate.after(bestCommit.getAuthorIdent().getWhen()))) {
-                bestCommit = commit;
-            }
-        }
-
-        return bestCommit;
+        // Commit della release: data d'autore più recente non successiva alla release
+        Repository repository = git.getRepository();
+        return RevisionWalker.findLatestAuthoredBefore(repository, repository.resolve(Constants.HEAD), releaseDate);
     }
 
-    private static void checkoutCommit(Git git, RevCommit commit) {
+    private static boolean checkoutCommit(Git git, RevCommit commit) {
         try {
             git.checkout()
                     .setName(commit.getName())
                     .call();
         } catch (Exception e) {
             System.out.println(">> [WARNING] Skipping commit: " + commit.getName() + " - " + e.getMessage());
-            return;
+            return false;
         }
         LOGGER.info(() -> String.format("Checked out commit %s", commit.getName()));
+        return true;
+    }
+
+    static Map<String, ObjectId> listBlobIds(Git git, RevCommit commit) throws IOException {
+        Map<String, ObjectId> blobIds = new LinkedHashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathSuffixFilter.create(JAVA_EXTENSION));
+            while (treeWalk.next()) {
+                blobIds.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+            }
+        }
+        return blobIds;
     }
 
-    private static class ReleaseContext {
+    /**
+     * Release in analisi: le visite della storia partono da {@code releaseCommit} (non da HEAD), così più release
+     * possono essere analizzate in parallelo senza checkout. L'etichetta Buggy viene dal {@link BugFixIndex}
+     * condiviso, interrogato con l'indice della release in VersionInfo.csv.
+     */
+    static class ReleaseContext {
         final Date releaseDate;
         final String releaseId;
-        final Map<String, TicketInfo> ticketCommits;
+        final int releaseIndex;
+        final BugFixIndex fixIndex;
+        final ObjectId releaseCommit;
 
-        ReleaseContext(Date releaseDate, String releaseId, Map<String, TicketInfo> ticketCommits) {
+        ReleaseContext(Date releaseDate, String releaseId, int releaseIndex, BugFixIndex fixIndex,
+                       ObjectId releaseCommit) {
             this.releaseDate = releaseDate;
             this.releaseId = releaseId;
-            this.ticketCommits = ticketCommits;
+            this.releaseIndex = releaseIndex;
+            this.fixIndex = fixIndex;
+            this.releaseCommit = releaseCommit;
         }
     }
 
@@ -188,31 +239,39 @@ public class MetricExtractor {
             JavaParser parser,
             Git git,
             ReleaseContext context,
+            Map<String, ObjectId> blobIds,
             HistoricalMetricsExtractor historicalExtractor,
-            PrintWriter writer
+            ExtractionJournal journal
     ) throws IOException {
-        JavaProcessingContext processingContext = new JavaProcessingContext(git, context, historicalExtractor, writer);
+        JavaProcessingContext processingContext =
+                new JavaProcessingContext(git, context, blobIds, historicalExtractor, journal);
         try (Stream<Path> paths = Files.walk(repoDir.toPath())) {
             paths.filter(Files::isRegularFile)
                     .filter(p -> p.toString().endsWith(JAVA_EXTENSION))
-                    .filter(p -> !p.toString().contains("/target/"))
-                    .filter(p -> !p.toString().contains("/test/"))
-                    .filter(p -> !p.toString().contains("/build/"))
+                    .filter(p -> isAnalyzed(p.toString()))
                     .forEach(path -> processJavaFile(path, parser, processingContext));
         }
     }
 
+    // Esclude sorgenti di test e output di build
+    static boolean isAnalyzed(String path) {
+        return !path.contains("/target/") && !path.contains("/test/") && !path.contains("/build/");
+    }
+
     private static class JavaProcessingContext {
         final Git git;
         final ReleaseContext releaseContext;
+        final Map<String, ObjectId> blobIds;
         final HistoricalMetricsExtractor historicalExtractor;
-        final PrintWriter writer;
+        final ExtractionJournal journal;
 
-        JavaProcessingContext(Git git, ReleaseContext releaseContext, HistoricalMetricsExtractor historicalExtractor, PrintWriter writer) {
+        JavaProcessingContext(Git git, ReleaseContext releaseContext, Map<String, ObjectId> blobIds,
+                              HistoricalMetricsExtractor historicalExtractor, ExtractionJournal journal) {
             this.git = git;
             this.releaseContext = releaseContext;
+            this.blobIds = blobIds;
             this.historicalExtractor = historicalExtractor;
-            this.writer = writer;
+            this.journal = journal;
         }
     }
 
@@ -221,23 +280,95 @@ public class MetricExtractor {
             JavaParser parser,
             JavaProcessingContext context
     ) {
+        String relativePath = toRepoRelativePath(path, context.git);
+        String releaseId = context.releaseContext.releaseId;
+        if (context.journal.isDone(releaseId, relativePath)) return;
+
+        StringWriter rows = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(rows)) {
+            processJavaFile(path, relativePath, parser, context, writer);
+        }
         try {
-            CompilationUnit compilationUnit = parser.parse(path).getResult().orElse(null);
-            if (compilationUnit == null) return;
+            context.journal.commit(releaseId, relativePath, rows.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Errore nella scrittura del giornale per " + relativePath, e);
+        }
+    }
 
-            compilationUnit.findAll(MethodDeclaration.class).forEach(method ->
-                    processMethod(method, path, context.git, context.releaseContext, context.historicalExtractor, context.writer));
+    private static void processJavaFile(
+            Path path,
+            String relativePath,
+            JavaParser parser,
+            JavaProcessingContext context,
+            PrintWriter writer
+    ) {
+        try {
+            ObjectId blobId = context.blobIds.get(relativePath);
+            // I file non modificati tra una release e l'altra hanno lo stesso blob: niente re-parsing
+            CompilationUnit compilationUnit = blobId != null
+                    ? AstCache.shared().getOrParse(context.git.getRepository(), blobId)
+                    : parser.parse(path).getResult().orElse(null);
+            if (compilationUnit == null) return;
+            processCompilationUnit(compilationUnit, path, relativePath, context.git, context.releaseContext,
+                    context.historicalExtractor, writer);
+        } catch (Exception e) {
+            LOGGER.warning("Errore nel parsing: " + path + " - " + e.getMessage());
+        }
+    }
 
+    /**
+     * Analizza un sorgente letto direttamente dal tree della release (senza checkout): stesse righe di
+     * processJavaFile, con il path assoluto ricostruito dalla work tree.
+     */
+    static void processBlob(
+            Git git,
+            ReleaseContext releaseContext,
+            String relativePath,
+            ObjectId blobId,
+            HistoricalMetricsExtractor historicalExtractor,
+            PrintWriter writer
+    ) {
+        Path path = new File(git.getRepository().getWorkTree(), relativePath).toPath();
+        try {
+            CompilationUnit compilationUnit = AstCache.shared().getOrParse(git.getRepository(), blobId);
+            if (compilationUnit == null) return;
+            processCompilationUnit(compilationUnit, path, relativePath, git, releaseContext, historicalExtractor, writer);
         } catch (Exception e) {
             LOGGER.warning("Errore nel parsing: " + path + " - " + e.getMessage());
         }
     }
 
+    private static void processCompilationUnit(
+            CompilationUnit compilationUnit,
+            Path path,
+            String relativePath,
+            Git git,
+            ReleaseContext releaseContext,
+            HistoricalMetricsExtractor historicalExtractor,
+            PrintWriter writer
+    ) {
+        List<MethodDeclaration> methods = compilationUnit.findAll(MethodDeclaration.class);
+        // Smell PMD di tutti i metodi del file in un'unica analisi
+        List<String> sources = new ArrayList<>(methods.size());
+        methods.forEach(method -> sources.add(method.toString()));
+        int[] smells = PmdSmellCounter.countSmells(sources);
+        // TSLC e CommitHash dipendono solo dal file: ultima modifica cercata una volta per (release, file)
+        RevCommit lastChange = findLastChangeBeforeRelease(relativePath, releaseContext, git);
+
+        for (int i = 0; i < methods.size(); i++) {
+            processMethod(methods.get(i), smells[i], path, relativePath, git, releaseContext, lastChange,
+                    historicalExtractor, writer);
+        }
+    }
+
     private static void processMethod(
             MethodDeclaration method,
+            int smells,
             Path path,
+            String relativePath,
             Git git,
             ReleaseContext context,
+            RevCommit lastChange,
             HistoricalMetricsExtractor historicalExtractor,
             PrintWriter writer
     ) {
@@ -248,16 +379,12 @@ public class MetricExtractor {
         int cyclomatic = countCyclomaticComplexity(method);
         int nesting = countMaxNestingDepth(method);
         int cognitive = cyclomatic + nesting;
-        int smells = countPMDSmells(method.toString());
         int nameLength = methodName.length();
-        long tslc = calculateTSLC(path, context.releaseDate, git);
+        long tslc = calculateTSLC(lastChange, context);
         int fanOut = method.findAll(MethodCallExpr.class).size();
 
         //Todo cancellare
-        boolean buggy = context.ticketCommits.values().stream()
-                .anyMatch(ticket -> ticket.getAssociatedCommits().stream()
-                        .anyMatch(commit -> commit.getCommitTime() * 1000L <= context.releaseDate.getTime() &&
-                                commit.getFullMessage().contains(methodName)));
+        boolean buggy = context.fixIndex.fixedBefore(methodName, context.releaseIndex);
 
 
 
@@ -267,7 +394,7 @@ public class MetricExtractor {
                 cyclomatic, nesting, cognitive, smells, nameLength, tslc, fanOut,
                 buggy
         );
-        writeMethodMetrics(historicalExtractor, path, context.releaseDate, git, metrics, writer);
+        writeMethodMetrics(historicalExtractor, path, relativePath, context, git, lastChange, metrics, writer);
     }
 
     private static int countStatements(MethodDeclaration method) {
@@ -283,28 +410,28 @@ public class MetricExtractor {
         return new File(repoPath);
     }
 
-    private static long calculateTSLC(Path path, Date releaseDate, Git git) {
-        try {
-            String relPath = path.toAbsolutePath().toString()
-                    .replace(git.getRepository().getWorkTree().getAbsolutePath(), "")
-                    .replace(File.separatorChar, '/')
-                    .replaceAll("^/", ""); // rimuove eventuale slash iniziale
+    private static String toRepoRelativePath(Path path, Git git) {
+        return path.toAbsolutePath().toString()
+                .replace(git.getRepository().getWorkTree().getAbsolutePath(), "")
+                .replace(File.separatorChar, '/')
+                .replaceAll("^/", "");
+    }
 
-            Iterable<RevCommit> commits = git.log()
-                    .addPath(relPath)
-                    .call();
+    private static long calculateTSLC(RevCommit lastChange, ReleaseContext context) {
+        if (lastChange == null) return -1;
+        long diffMillis = context.releaseDate.getTime() - lastChange.getAuthorIdent().getWhen().getTime();
+        return diffMillis / (1000 * 60 * 60 * 24);  // giorni
+    }
 
-            for (RevCommit c : commits) {
-                Date commitDate = c.getAuthorIdent().getWhen();
-                if (!commitDate.after(releaseDate)) {
-                    long diffMillis = releaseDate.getTime() - commitDate.getTime();
-                    return diffMillis / (1000 * 60 * 60 * 24);  // giorni
-                }
-            }
+    // Ultimo commit (dal commit della release) che ha toccato il file prima della release; null se non trovato
+    private static RevCommit findLastChangeBeforeRelease(String relativePath, ReleaseContext context, Git git) {
+        try {
+            return RevisionWalker.findLastChange(git.getRepository(), context.releaseCommit,
+                    relativePath, context.releaseDate);
         } catch (Exception e) {
-            LOGGER.warning("Errore nel calcolo del TSLC per " + path + ": " + e.getMessage());
+            LOGGER.warning("Errore nella ricerca dell'ultima modifica di " + relativePath + ": " + e.getMessage());
+            return null;
         }
-        return -1;
     }
 
     private static int countCyclomaticComplexity(MethodDeclaration method) {
@@ -334,38 +461,6 @@ public class MetricExtractor {
         return max;
     }
 
-    private static int countPMDSmells(String code) {
-        PMDConfiguration config = new PMDConfiguration();
-        LanguageVersion javaVersion = LanguageRegistry.PMD.getLanguageVersionById("java", "17");
-        config.setDefaultLanguageVersion(javaVersion);
-        config.setIgnoreIncrementalAnalysis(true);
-
-        try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
-            RuleSetLoader loader = RuleSetLoader.fromPmdConfig(config);
-            pmd.addRuleSet(loader.loadFromResource("category/java/bestpractices.xml"));
-            pmd.addRuleSet(loader.loadFromResource("category/java/errorprone.xml"));
-            pmd.addRuleSet(loader.loadFromResource("category/java/codestyle.xml"));
-            pmd.addRuleSet(loader.loadFromResource("category/java/design.xml"));
-
-            Path tempDir = Files.createTempDirectory("pmd_tmp_");
-            tempDir.toFile().deleteOnExit();
-            Path tempFile = Files.createTempFile(tempDir, "method", JAVA_EXTENSION);
-            Files.writeString(tempFile, "public class TempClass { " + code + " }");
-            pmd.files().addFile(tempFile);
-
-            var report = pmd.performAnalysisAndCollectReport();
-
-            Files.deleteIfExists(tempFile);
-            Files.deleteIfExists(tempDir);
-
-            return (int) report.getViolations().spliterator().getExactSizeIfKnown();
-        } catch (Exception e) {
-            LOGGER.severe("Errore nell'analisi PMD: " + e.getMessage());
-            return 0;
-        }
-    }
-
-
     private static class MethodMetrics {
         final String methodName;
         final String releaseId;
@@ -404,18 +499,20 @@ public class MetricExtractor {
     private static void writeMethodMetrics(
             HistoricalMetricsExtractor historicalExtractor,
             Path path,
-            Date releaseDate,
+            String relativePath,
+            ReleaseContext context,
             Git git,
+            RevCommit lastChange,
             MethodMetrics metrics,
             PrintWriter writer) {
         try {
-            HistoricalMetricsExtractor.HistoricalMetrics historical =
-                    historicalExtractor.extract(path, releaseDate, git);
+            HistoricalMetricsExtractor.HistoricalMetrics historical = historicalExtractor.extract(
+                    git.getRepository(), context.releaseCommit, relativePath, context.releaseDate);
 
             int modifications = historical.getModifications();
             int authors = historical.getAuthors().size();
 
-            String commitHash = findLatestCommitHashBeforeRelease(path, releaseDate, git);
+            String commitHash = lastChange != null ? lastChange.getName() : "UNKNOWN"; // SHA-1 del commit
             writer.println(String.format(
                     "%s,%s,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%s,%s,%s",
                     metrics.methodName, metrics.releaseId, metrics.loc, metrics.paramCount, metrics.statements,
@@ -423,30 +520,8 @@ public class MetricExtractor {
                     authors, metrics.nameLength, metrics.tslc, metrics.fanOut, metrics.buggy ? "YES" : "NO",
                     path.toString(), commitHash
             ));
-        } catch (IOException | org.eclipse.jgit.api.errors.GitAPIException e) {
+        } catch (IOException e) {
             LOGGER.warning("Errore nelle metriche storiche per " + metrics.methodName + ": " + e.getMessage());
         }
     }
-
-    private static String findLatestCommitHashBeforeRelease(Path path, Date releaseDate, Git git) {
-        try {
-            String relPath = path.toAbsolutePath().toString()
-                    .replace(git.getRepository().getWorkTree().getAbsolutePath(), "")
-                    .replace(File.separatorChar, '/')
-                    .replaceAll("^/", "");
-
-            Iterable<RevCommit> commits = git.log().addPath(relPath).call();
-
-            for (RevCommit commit : commits) {
-                Date commitDate = commit.getAuthorIdent().getWhen();
-                if (!commitDate.after(releaseDate)) {
-                    return commit.getName(); // SHA-1 del commit
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.warning("Errore nel recupero del commit per " + path + ": " + e.getMessage());
-        }
-        return "UNKNOWN";
-    }
 }
-
@@ -0,0 +1,326 @@
+package services;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Estrazione delle metriche di più progetti in un'unica JVM, su un solo pool di thread di dimensione fissa.
+ *
+ * Ogni progetto (chiave JIRA e directory della repository) viene scomposto in unità (release, file): i commit
+ * delle release sono risolti dalla storia di master e i sorgenti letti dal tree del commit, senza checkout,
+ * così release e progetti diversi possono avanzare insieme sulla stessa macchina. Il {@link FairPool} serve le
+ * code dei progetti a turno, quindi un progetto grande non blocca quelli piccoli.
+ *
+ * Cache di AST, blob e regole PMD sono già condivise da tutto il processo. Ogni progetto scrive il proprio
+ * metrics_&lt;progetto&gt;new.csv con le release nell'ordine di &lt;KEY&gt;VersionInfo.csv e, dentro ogni release, i file
+ * nell'ordine dei path del tree Git: l'ordine è deterministico ma può differire da quello di Files.walk
+ * dell'esecuzione sequenziale. Le unità passano dall'{@link ExtractionJournal} del progetto nell'ordine di
+ * sequenza, quindi un'esecuzione interrotta riprende saltando quelle già registrate. Per progetto restano in
+ * volo al più {@value #UNITS_PER_THREAD} unità per thread non ancora registrate, così il buffer di riordino
+ * resta limitato anche se un'unità è molto più lenta delle successive. Un progetto che fallisce non ferma gli altri.
+ */
+public final class MultiProjectRunner {
+    private static final String THREADS_OPTION = "--threads";
+    private static final String OUTPUT_OPTION = "--output";
+    private static final String MASTER_REF = Constants.R_HEADS + "master";
+    private static final int UNITS_PER_THREAD = 4;
+
+    private static final Logger LOGGER = Logger.getLogger(MultiProjectRunner.class.getName());
+
+    private MultiProjectRunner() {
+        // Utility class
+    }
+
+    /**
+     * Pool di thread fissi con una coda per progetto: i worker prendono un'unità per volta da ogni progetto
+     * che ha lavoro in attesa, a turno (round-robin).
+     */
+    static final class FairPool {
+        private final Map<String, ArrayDeque<Runnable>> queues = new HashMap<>();
+        private final ArrayDeque<String> ready = new ArrayDeque<>();
+        private final List<Thread> workers = new ArrayList<>();
+        private long pending;
+        private boolean shutdown;
+
+        FairPool(int threads) {
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(this::work, "extract-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        synchronized void submit(String project, Runnable task) {
+            if (shutdown) throw new IllegalStateException("Pool chiuso");
+            ArrayDeque<Runnable> queue = queues.computeIfAbsent(project, p -> new ArrayDeque<>());
+            if (queue.isEmpty()) ready.addLast(project);
+            queue.addLast(task);
+            pending++;
+            notifyAll();
+        }
+
+        // Attende che tutte le unità inviate (comprese quelle inviate da altre unità) siano terminate
+        synchronized void awaitIdle() throws InterruptedException {
+            while (pending > 0) {
+                wait();
+            }
+        }
+
+        synchronized void shutdown() {
+            shutdown = true;
+            notifyAll();
+        }
+
+        private synchronized Runnable take() throws InterruptedException {
+            while (ready.isEmpty() && !shutdown) {
+                wait();
+            }
+            String project = ready.pollFirst();
+            if (project == null) return null;
+            ArrayDeque<Runnable> queue = queues.get(project);
+            Runnable task = queue.pollFirst();
+            if (!queue.isEmpty()) ready.addLast(project);
+            return task;
+        }
+
+        private synchronized void done() {
+            if (--pending == 0) notifyAll();
+        }
+
+        private void work() {
+            try {
+                for (Runnable task = take(); task != null; task = take()) {
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        // Anche un Error (es. StackOverflowError del parser) non deve fermare il worker
+                        LOGGER.log(Level.SEVERE, "Unità terminata con errore", e);
+                    } finally {
+                        done();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Righe CSV di un'unità (release, file) in attesa di essere registrate nel giornale
+    record UnitResult(String releaseId, String relativePath, String rows) {
+    }
+
+    /**
+     * Stato di un progetto: repository aperta (con la sessione dei blob), giornale e buffer di riordino delle
+     * unità completate.
+     */
+    static final class Project {
+        final String key;
+        final File repoDir;
+        final File output;
+        private final int window;
+        private final TreeMap<Long, UnitResult> completed = new TreeMap<>();
+        private Git git;
+        private BlobStore blobs;
+        private ExtractionJournal journal;
+        private FairPool pool;
+        private List<Runnable> queued = List.of();
+        private int submitted;
+        private long units = -1;
+        private long nextToWrite;
+        private final long start = System.nanoTime();
+
+        Project(String key, File repoDir, File output, int window) {
+            this.key = key;
+            this.repoDir = repoDir;
+            this.output = output;
+            this.window = window;
+        }
+
+        // Un'unità viene registrata solo quando tutte le unità precedenti sono state registrate
+        synchronized void complete(long sequence, UnitResult result) {
+            completed.put(sequence, result);
+            flush();
+        }
+
+        // Le unità vengono inviate al pool a finestra: al più window unità non ancora registrate
+        synchronized void start(FairPool pool, List<Runnable> queued) {
+            this.pool = pool;
+            this.queued = queued;
+            this.units = queued.size();
+            flush();
+        }
+
+        private void submitMore() {
+            while (submitted < queued.size() && submitted - nextToWrite < window) {
+                pool.submit(key, queued.get(submitted++));
+            }
+        }
+
+        private void flush() {
+            if (journal == null) return;
+            try {
+                while (!completed.isEmpty() && completed.firstKey() == nextToWrite) {
+                    UnitResult result = completed.pollFirstEntry().getValue();
+                    journal.commit(result.releaseId(), result.relativePath(), result.rows());
+                    nextToWrite++;
+                }
+                if (nextToWrite == units) {
+                    StringWriter header = new StringWriter();
+                    MetricExtractor.writeMetricsHeader(new PrintWriter(header, true));
+                    journal.finish(header.toString());
+                    LOGGER.info(() -> String.format("Progetto %s completato: %d unità in %.1f s, metriche in %s",
+                            key, units, (System.nanoTime() - start) / 1e9, output));
+                    close();
+                } else if (units >= 0) {
+                    submitMore();
+                }
+            } catch (IOException e) {
+                // Il giornale resta com'è: una nuova esecuzione riprende dall'ultima unità registrata
+                LOGGER.log(Level.SEVERE, e, () -> "Progetto " + key + " interrotto");
+                close();
+            }
+        }
+
+        synchronized void close() {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, e, () -> "Chiusura del giornale di " + key);
+                }
+                journal = null;
+            }
+            if (blobs != null) {
+                blobs.close();
+                blobs = null;
+            }
+            if (git != null) {
+                git.close();
+                git = null;
+            }
+            queued = List.of();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> specs = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        File outputDir = new File(".");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case THREADS_OPTION -> threads = Integer.parseInt(args[++i]);
+                case OUTPUT_OPTION -> outputDir = new File(args[++i]);
+                default -> specs.add(args[i]);
+            }
+        }
+        if (specs.isEmpty() || specs.stream().anyMatch(s -> s.indexOf('=') <= 0)) {
+            System.out.println("Usage: java services.MultiProjectRunner <KEY>=<repoDir> [<KEY>=<repoDir> ...]"
+                    + " [--threads <n>] [--output <dir>]");
+            return;
+        }
+
+        List<Project> projects = new ArrayList<>();
+        for (String spec : specs) {
+            int separator = spec.indexOf('=');
+            String key = spec.substring(0, separator).toUpperCase();
+            projects.add(new Project(key, new File(spec.substring(separator + 1)),
+                    new File(outputDir, MetricExtractor.metricsFileName(key)), threads * UNITS_PER_THREAD));
+        }
+
+        long start = System.nanoTime();
+        FairPool pool = new FairPool(threads);
+        HistoricalMetricsExtractor historicalExtractor = new HistoricalMetricsExtractor();
+        try {
+            for (Project project : projects) {
+                pool.submit(project.key, () -> schedule(project, pool, historicalExtractor));
+            }
+            pool.awaitIdle();
+        } finally {
+            pool.shutdown();
+            projects.forEach(Project::close);
+        }
+        LOGGER.info(String.format("%d progetti in %.1f s - %s %s", projects.size(),
+                (System.nanoTime() - start) / 1e9, AstCache.shared(), BlobStore.cacheStats()));
+    }
+
+    /**
+     * Prima unità di un progetto: ticket e commit associati, commit delle release e sorgenti di ciascuna;
+     * poi una unità (release, file) per ogni sorgente analizzato.
+     */
+    private static void schedule(Project project, FairPool pool, HistoricalMetricsExtractor historicalExtractor) {
+        List<Runnable> units = new ArrayList<>();
+        try {
+            Git git = Git.open(new File(project.repoDir, ".git"));
+            synchronized (project) {
+                project.git = git;
+                project.blobs = BlobStore.open(git.getRepository());
+            }
+            ExtractionJournal journal = ExtractionJournal.open(project.output);
+            synchronized (project) {
+                project.journal = journal;
+            }
+            Map<String, TicketInfo> bugTickets = JiraTicketFetcher.fetchFixedBugTickets(project.key);
+            // Ticket e commit non vengono filtrati per release: BugFixIndex risponde per indice di release
+            FixCommitStore fixMessages = FixCommitStore.fromEnvironment();
+            Map<String, TicketInfo> ticketCommits = BugCommitMatcher.mapTicketsToCommits(
+                    bugTickets, git, project.repoDir.getAbsolutePath(), fixMessages);
+
+            List<MetricExtractor.Release> releases = MetricExtractor.readReleases(MetricExtractor.versionFileName(project.key));
+            BugFixIndex fixIndex = BugFixIndex.build(ticketCommits, releases, fixMessages);
+
+            Repository repository = git.getRepository();
+            ObjectId head = repository.resolve(MASTER_REF);
+            if (head == null) head = repository.resolve(Constants.HEAD);
+            for (int releaseIndex = 0; releaseIndex < releases.size(); releaseIndex++) {
+                MetricExtractor.Release release = releases.get(releaseIndex);
+                if (journal.isReleaseDone(release.id)) continue;
+                RevCommit releaseCommit = RevisionWalker.findLatestAuthoredBefore(repository, head, release.date);
+                if (releaseCommit == null) {
+                    LOGGER.warning(() -> String.format("%s: nessun commit per la release %s", project.key, release.id));
+                    continue;
+                }
+                MetricExtractor.ReleaseContext context = new MetricExtractor.ReleaseContext(
+                        release.date, release.id, releaseIndex, fixIndex, releaseCommit);
+                for (Map.Entry<String, ObjectId> blob : MetricExtractor.listBlobIds(git, releaseCommit).entrySet()) {
+                    if (!MetricExtractor.isAnalyzed("/" + blob.getKey()) || journal.isDone(release.id, blob.getKey())) {
+                        continue;
+                    }
+                    long sequence = units.size();
+                    units.add(() -> {
+                        StringWriter rows = new StringWriter();
+                        try (PrintWriter unitWriter = new PrintWriter(rows)) {
+                            MetricExtractor.processBlob(git, context, blob.getKey(), blob.getValue(),
+                                    historicalExtractor, unitWriter);
+                        } finally {
+                            project.complete(sequence, new UnitResult(release.id, blob.getKey(), rows.toString()));
+                        }
+                    });
+                }
+            }
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Progetto " + project.key + " non avviato");
+            project.close();
+            return;
+        }
+        LOGGER.info(() -> String.format("%s: %d unità in coda", project.key, units.size()));
+        project.start(pool, units);
+    }
+}
@@ -0,0 +1,136 @@
+package services;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.RuleSetLoader;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Conta gli smell PMD di uno o più metodi analizzando il sorgente in memoria, senza file temporanei
+ * né processi esterni. Le regole (bestpractices, errorprone, codestyle, design) vengono caricate una
+ * sola volta e condivise da MetricExtractor e MethodAnalyzer, così i conteggi coincidono con la colonna Smells.
+ */
+public final class PmdSmellCounter {
+    private static final String JAVA_LANGUAGE = "java";
+    private static final String JAVA_VERSION = "17";
+    private static final String WRAPPER_PREFIX = "public class TempClass { ";
+    private static final String WRAPPER_SUFFIX = " }";
+    private static final String[] RULE_SETS = {
+            "category/java/bestpractices.xml",
+            "category/java/errorprone.xml",
+            "category/java/codestyle.xml",
+            "category/java/design.xml"
+    };
+
+    private static final String ENV_CACHE_MAX_ENTRIES = "PMD_CACHE_MAX_ENTRIES";
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 10_000;
+
+    private static final Logger LOGGER = Logger.getLogger(PmdSmellCounter.class.getName());
+
+    // Conteggi già calcolati per sorgente di metodo: ogni analisi PMD reinizializza le regole XPath
+    // (centinaia di ms), quindi i metodi già visti non vengono rianalizzati
+    private static final int CACHE_MAX_ENTRIES = Integer.parseInt(
+            System.getenv().getOrDefault(ENV_CACHE_MAX_ENTRIES, String.valueOf(DEFAULT_CACHE_MAX_ENTRIES)));
+    private static final Map<String, Integer> RESULTS = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > CACHE_MAX_ENTRIES;
+        }
+    };
+
+    private PmdSmellCounter() {
+        // Utility class
+    }
+
+    // Holder lazy: le regole vengono parsate al primo utilizzo e poi riusate per tutta la JVM
+    private static final class Engine {
+        static final LanguageVersion LANGUAGE_VERSION =
+                LanguageRegistry.PMD.getLanguageVersionById(JAVA_LANGUAGE, JAVA_VERSION);
+        static final List<RuleSet> RULES = loadRuleSets();
+
+        private static List<RuleSet> loadRuleSets() {
+            RuleSetLoader loader = RuleSetLoader.fromPmdConfig(newConfiguration());
+            List<RuleSet> ruleSets = new ArrayList<>();
+            for (String ruleSet : RULE_SETS) {
+                ruleSets.add(loader.loadFromResource(ruleSet));
+            }
+            return ruleSets;
+        }
+    }
+
+    private static PMDConfiguration newConfiguration() {
+        PMDConfiguration config = new PMDConfiguration();
+        config.setDefaultLanguageVersion(Engine.LANGUAGE_VERSION);
+        config.setIgnoreIncrementalAnalysis(true);
+        config.setThreads(0); // analisi nel thread chiamante
+        return config;
+    }
+
+    /**
+     * Restituisce il numero di smell del singolo metodo (0 in caso di errore, come nel dataset).
+     */
+    public static int countSmells(String methodCode) {
+        return countSmells(List.of(methodCode))[0];
+    }
+
+    /**
+     * Analizza più metodi in un'unica passata PMD; l'i-esimo risultato corrisponde all'i-esimo sorgente.
+     */
+    public static int[] countSmells(List<String> methodCodes) {
+        int[] counts = new int[methodCodes.size()];
+        List<Integer> missing = new ArrayList<>();
+        synchronized (RESULTS) {
+            for (int i = 0; i < methodCodes.size(); i++) {
+                Integer cached = RESULTS.get(methodCodes.get(i));
+                if (cached != null) {
+                    counts[i] = cached;
+                } else {
+                    missing.add(i);
+                }
+            }
+        }
+        if (missing.isEmpty()) return counts;
+
+        try (PmdAnalysis pmd = PmdAnalysis.create(newConfiguration())) {
+            pmd.addRuleSets(Engine.RULES);
+
+            Map<FileId, Integer> indexByFile = new HashMap<>();
+            for (int i : missing) {
+                FileId fileId = FileId.fromPathLikeString("Method" + i + ".java");
+                indexByFile.put(fileId, i);
+                pmd.files().addSourceFile(fileId, WRAPPER_PREFIX + methodCodes.get(i) + WRAPPER_SUFFIX);
+            }
+
+            Report report = pmd.performAnalysisAndCollectReport();
+            for (RuleViolation violation : report.getViolations()) {
+                Integer index = indexByFile.get(violation.getFileId());
+                if (index != null) {
+                    counts[index]++;
+                }
+            }
+            synchronized (RESULTS) {
+                for (int i : missing) {
+                    RESULTS.put(methodCodes.get(i), counts[i]);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.severe("Errore nell'analisi PMD: " + e.getMessage());
+            for (int i : missing) {
+                counts[i] = 0;
+            }
+        }
+        return counts;
+    }
+}
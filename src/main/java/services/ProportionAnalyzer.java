@@ -1,7 +1,9 @@
 package services;
 
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 
 import java.io.File;
 import java.io.IOException;
@@ -20,36 +22,40 @@ public class ProportionAnalyzer {
             Map<String, Integer> methodTotalCommits = new HashMap<>();
             Map<String, Integer> methodBuggyCommits = new HashMap<>();
 
-            for (TicketInfo ticket : ticketMap.values()) {
-                Set<RevCommit> associatedCommits = ticket.getAssociatedCommits();
-                for (RevCommit commit : associatedCommits) {
+            // I ticket conservano riferimenti compatti: i commit (con i parent) vengono riletti per il diff
+            try (RevWalk walk = RevisionWalker.newWalk(git.getRepository(), false)) {
+                for (TicketInfo ticket : ticketMap.values()) {
+                    for (CommitRef ref : ticket.getAssociatedCommits()) {
+                        RevCommit commit = walk.parseCommit(ref.getId());
+                        RevCommit[] parents = commit.getParents();
+                        if (parents.length == 0) continue;
+                        RevCommit parent = parents[0];
+
+                        Set<String> modifiedMethods = GitUtils.getModifiedMethodsBetweenCommits(REPO_PATH, parent, commit);
+
+                        for (String method : modifiedMethods) {
+                            methodTotalCommits.put(method, methodTotalCommits.getOrDefault(method, 0) + 1);
+                            methodBuggyCommits.put(method, methodBuggyCommits.getOrDefault(method, 0) + 1);
+                        }
+                    }
+                }
+            }
+
+            // Analizza tutti i commit per metodo, man mano che la visita li produce
+            try (RevWalk walk = RevisionWalker.newWalk(git.getRepository(), false)) {
+                walk.markStart(walk.parseCommit(git.getRepository().resolve(Constants.HEAD)));
+                for (RevCommit commit : walk) {
                     RevCommit[] parents = commit.getParents();
                     if (parents.length == 0) continue;
                     RevCommit parent = parents[0];
 
                     Set<String> modifiedMethods = GitUtils.getModifiedMethodsBetweenCommits(REPO_PATH, parent, commit);
-
                     for (String method : modifiedMethods) {
                         methodTotalCommits.put(method, methodTotalCommits.getOrDefault(method, 0) + 1);
-                        methodBuggyCommits.put(method, methodBuggyCommits.getOrDefault(method, 0) + 1);
                     }
                 }
             }
 
-            // Analizza tutti i commit per metodo
-            List<RevCommit> allCommits = new ArrayList<>();
-            git.log().call().forEach(allCommits::add);
-            for (RevCommit commit : allCommits) {
-                RevCommit[] parents = commit.getParents();
-                if (parents.length == 0) continue;
-                RevCommit parent = parents[0];
-
-                Set<String> modifiedMethods = GitUtils.getModifiedMethodsBetweenCommits(REPO_PATH, parent, commit);
-                for (String method : modifiedMethods) {
-                    methodTotalCommits.put(method, methodTotalCommits.getOrDefault(method, 0) + 1);
-                }
-            }
-
             Map<String, Double> methodBugProportionMap = new HashMap<>();
             for (String method : methodTotalCommits.keySet()) {
                 int buggy = methodBuggyCommits.getOrDefault(method, 0);
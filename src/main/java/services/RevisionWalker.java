@@ -0,0 +1,161 @@
+package services;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Visite della storia Git basate su RevWalk, al posto di {@code git.log().call()}.
+ *
+ * Le visite che usano solo date e topologia non conservano il corpo dei commit ({@code setRetainBody(false)}),
+ * applicano i filtri temporali direttamente nel RevWalk e leggono il commit-graph del repository se presente
+ * (si genera con {@code git commit-graph write --reachable}; il repository analizzato non viene modificato).
+ * I commit restituiti dalle visite body-free espongono id, commit time, parent e tree, ma non autore né messaggio.
+ */
+public final class RevisionWalker {
+    private RevisionWalker() {
+        // Utility class
+    }
+
+    /**
+     * Crea un RevWalk sul repository, con commit-graph abilitato.
+     */
+    public static RevWalk newWalk(Repository repository, boolean retainBody) {
+        enableCommitGraph(repository);
+        RevWalk walk = new RevWalk(repository);
+        walk.setRetainBody(retainBody);
+        return walk;
+    }
+
+    /**
+     * Abilita la lettura del commit-graph sull'istanza di Repository (solo in memoria, la config su disco non
+     * viene toccata). Va ripetuto per ogni istanza: la config viene ricaricata se il file cambia.
+     */
+    public static void enableCommitGraph(Repository repository) {
+        StoredConfig config = repository.getConfig();
+        if (!config.getBoolean(ConfigConstants.CONFIG_CORE_SECTION, ConfigConstants.CONFIG_COMMIT_GRAPH, false)) {
+            config.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+        }
+    }
+
+    /**
+     * Commit raggiungibile da {@code start} con il commit time più recente tra quelli non successivi a
+     * {@code until}. Visita body-free.
+     */
+    public static RevCommit findLatestCommitBefore(Repository repository, AnyObjectId start, Date until)
+            throws IOException {
+        if (start == null) return null;
+        try (RevWalk walk = newWalk(repository, false)) {
+            walk.markStart(walk.parseCommit(start));
+            walk.setRevFilter(CommitTimeRevFilter.before(until));
+            // Con orologi sfasati il commit time non decresce lungo la visita: si prende il massimo
+            RevCommit latest = null;
+            for (RevCommit commit : walk) {
+                if (latest == null || commit.getCommitTime() > latest.getCommitTime()) {
+                    latest = commit;
+                }
+            }
+            return latest;
+        }
+    }
+
+    /**
+     * Commit raggiungibile da {@code start} con la data d'autore più recente tra quelle non successive a
+     * {@code until} (commit della release). La data d'autore è nel corpo del commit: la visita lo legge e lo
+     * rilascia per tutti i commit tranne quello restituito.
+     */
+    public static RevCommit findLatestAuthoredBefore(Repository repository, AnyObjectId start, Date until)
+            throws IOException {
+        if (start == null) return null;
+        try (RevWalk walk = newWalk(repository, true)) {
+            walk.markStart(walk.parseCommit(start));
+            RevCommit latest = null;
+            long latestMillis = Long.MIN_VALUE;
+            for (RevCommit commit : walk) {
+                long authorMillis = commit.getAuthorIdent().getWhen().getTime();
+                if (authorMillis <= until.getTime() && authorMillis > latestMillis) {
+                    if (latest != null) latest.disposeBody();
+                    latest = commit;
+                    latestMillis = authorMillis;
+                } else {
+                    commit.disposeBody();
+                }
+            }
+            return latest;
+        }
+    }
+
+    /**
+     * Ultima modifica di {@code path} raggiungibile da {@code start}: il primo commit della visita (commit time
+     * decrescente) con commit time e data d'autore non successivi a {@code until}, come il primo risultato di
+     * {@code git log -- path} filtrato per data. Visita body-free: il corpo viene letto solo per i candidati,
+     * e il commit restituito lo conserva (autore disponibile).
+     */
+    public static RevCommit findLastChange(Repository repository, AnyObjectId start, String path, Date until)
+            throws IOException {
+        if (start == null) return null;
+        try (RevWalk walk = newWalk(repository, false)) {
+            walk.markStart(walk.parseCommit(start));
+            walk.setRevFilter(CommitTimeRevFilter.before(until));
+            walk.setTreeFilter(AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF));
+            for (RevCommit commit : walk) {
+                walk.parseBody(commit);
+                if (commit.getAuthorIdent().getWhen().getTime() <= until.getTime()) {
+                    return commit;
+                }
+                commit.disposeBody();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Commit raggiungibili da {@code start} che modificano {@code path}, con commit time strettamente
+     * precedente a {@code before}. Se {@code retainBody} è false i commit non hanno autore né messaggio.
+     */
+    public static List<RevCommit> listCommitsTouching(Repository repository, AnyObjectId start, String path,
+                                                      Date before, boolean retainBody) throws IOException {
+        List<RevCommit> commits = new ArrayList<>();
+        if (start == null) return commits;
+        try (RevWalk walk = newWalk(repository, retainBody)) {
+            walk.markStart(walk.parseCommit(start));
+            // Commit time in secondi: commitTime * 1000 < before equivale a commitTime <= floor((before - 1) / 1000)
+            walk.setRevFilter(CommitTimeRevFilter.before(before.getTime() - 1));
+            walk.setTreeFilter(AndTreeFilter.create(PathFilter.create(path), TreeFilter.ANY_DIFF));
+            for (RevCommit commit : walk) {
+                commits.add(commit);
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Visita tutti i commit raggiungibili dai ref del repository (equivalente di {@code git.log().all()}).
+     * Il chiamante deve chiudere il RevWalk restituito.
+     */
+    public static RevWalk walkAll(Repository repository, boolean retainBody) throws IOException {
+        RevWalk walk = newWalk(repository, retainBody);
+        for (Ref ref : repository.getRefDatabase().getRefs()) {
+            if (ref.getObjectId() == null) continue;
+            RevObject tip = walk.peel(walk.parseAny(ref.getObjectId()));
+            if (tip instanceof RevCommit commit) {
+                walk.markStart(commit);
+            }
+        }
+        return walk;
+    }
+}
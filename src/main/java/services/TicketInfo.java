@@ -1,7 +1,5 @@
 package services;
 
-import org.eclipse.jgit.revwalk.RevCommit;
-
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Date;
@@ -11,7 +9,8 @@ public class TicketInfo {
     private final String resolutionDate;
     private final String creationDate;
     private final String author;
-    private final Set<RevCommit> associatedCommits = new HashSet<>();
+    // Riferimenti compatti: un RevCommit terrebbe in vita tutta la storia raggiungibile dai suoi parent
+    private final Set<CommitRef> associatedCommits = new HashSet<>();
 
     public TicketInfo(String ticketID, String resolutionDate, String creationDate, String author) {
         this.ticketID = ticketID;
@@ -28,11 +27,11 @@ public class TicketInfo {
         return author;
     }
 
-    public Set<RevCommit> getAssociatedCommits() {
+    public Set<CommitRef> getAssociatedCommits() {
         return associatedCommits;
     }
 
-    public void addAssociatedCommit(RevCommit commit) {
+    public void addAssociatedCommit(CommitRef commit) {
         this.associatedCommits.add(commit);
         System.out.println("Aggiunto commit associato al ticket " + associatedCommits + ": " + commit.getName());
     }
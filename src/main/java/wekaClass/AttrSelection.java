@@ -7,21 +7,39 @@ import weka.filters.Filter;
 import weka.filters.supervised.attribute.AttributeSelection;
 import weka.core.converters.ArffSaver;
 import java.io.File;
-import weka.core.converters.ConverterUtils.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class AttrSelection {
+    private static final String THREADS_OPTION = "--threads";
+
     public static void main(String[] args) throws Exception {
-        if (args.length != 2) {
-            System.out.println("Usage: java wekaClass.AttrSelection input.arff output.arff");
+        if ((args.length != 2 && args.length != 4) || (args.length == 4 && !THREADS_OPTION.equals(args[2]))) {
+            System.out.println("Usage: java wekaClass.AttrSelection input.arff output.arff [--threads <n>]");
             return;
         }
 
         String inputPath = args[0];
         String outputPath = args[1];
 
-        DataSource source = new DataSource(inputPath);
-        Instances dataset = source.getDataSet();
+        Instances dataset = DatasetLoader.load(inputPath);
+
+        Instances newData = args.length == 4
+                ? select(dataset, new ParallelCfsSubsetEval.Cache(), Integer.parseInt(args[3]))
+                : select(dataset);
+
+        ArffSaver saver = new ArffSaver();
+        saver.setInstances(newData);
+        saver.setFile(new File(outputPath));
+        saver.writeBatch();
+
+        System.out.println("Attribute selection completed and saved to " + outputPath);
+    }
 
+    /**
+     * Selezione CFS con ricerca greedy backward; restituisce un nuovo dataset senza modificare l'input.
+     */
+    public static Instances select(Instances dataset) throws Exception {
         AttributeSelection filter = new AttributeSelection();
         CfsSubsetEval eval = new CfsSubsetEval();
         GreedyStepwise search = new GreedyStepwise();
@@ -31,13 +49,29 @@ public class AttrSelection {
         filter.setSearch(search);
         filter.setInputFormat(dataset);
 
-        Instances newData = Filter.useFilter(dataset, filter);
+        return Filter.useFilter(dataset, filter);
+    }
 
-        ArffSaver saver = new ArffSaver();
-        saver.setInstances(newData);
-        saver.setFile(new File(outputPath));
-        saver.writeBatch();
+    /**
+     * Stessa selezione di {@link #select(Instances)} con ParallelCfsSubsetEval: matrice delle correlazioni
+     * calcolata in parallelo e candidati di ogni passo greedy valutati su {@code threads} thread. La cache può
+     * essere condivisa tra più chiamate (es. A, B+ e B) per riusare le colonne in comune.
+     */
+    public static Instances select(Instances dataset, ParallelCfsSubsetEval.Cache cache, int threads) throws Exception {
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            AttributeSelection filter = new AttributeSelection();
+            GreedyStepwise search = new GreedyStepwise();
+            search.setSearchBackwards(true);
+            search.setNumExecutionSlots(Math.max(1, threads));
 
-        System.out.println("Attribute selection completed and saved to " + outputPath);
+            filter.setEvaluator(new ParallelCfsSubsetEval(cache, pool));
+            filter.setSearch(search);
+            filter.setInputFormat(dataset);
+
+            return Filter.useFilter(dataset, filter);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
     }
 }
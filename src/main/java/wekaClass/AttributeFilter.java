@@ -3,7 +3,6 @@ package wekaClass;
 import weka.core.Instances;
 import weka.core.converters.ArffSaver;
 import java.io.File;
-import weka.core.converters.ConverterUtils.DataSource;
 import weka.filters.Filter;
 import weka.filters.unsupervised.attribute.Remove;
 
@@ -18,14 +17,9 @@ public class AttributeFilter {
         String outputPath = args[1];
         String attributeIndex = args[2]; // e.g., "1" to remove the first attribute
 
-        DataSource source = new DataSource(inputPath);
-        Instances dataset = source.getDataSet();
+        Instances dataset = DatasetLoader.load(inputPath);
 
-        String[] opts = new String[]{ "-R", attributeIndex };
-        Remove remove = new Remove();
-        remove.setOptions(opts);
-        remove.setInputFormat(dataset);
-        Instances newData = Filter.useFilter(dataset, remove);
+        Instances newData = remove(dataset, attributeIndex);
 
         ArffSaver saver = new ArffSaver();
         saver.setInstances(newData);
@@ -34,4 +28,15 @@ public class AttributeFilter {
 
         System.out.println("Filtered dataset saved to " + outputPath);
     }
+
+    /**
+     * Rimuove gli attributi indicati (range Weka, es. "1,2,17-18"); restituisce un nuovo dataset.
+     */
+    public static Instances remove(Instances dataset, String attributeIndex) throws Exception {
+        String[] opts = new String[]{ "-R", attributeIndex };
+        Remove remove = new Remove();
+        remove.setOptions(opts);
+        remove.setInputFormat(dataset);
+        return Filter.useFilter(dataset, remove);
+    }
 }
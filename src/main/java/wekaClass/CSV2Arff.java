@@ -1,10 +1,7 @@
 package wekaClass;
 
 import weka.core.Instances;
-import weka.core.converters.CSVLoader;
 import weka.core.converters.ArffSaver;
-import weka.filters.Filter;
-import weka.filters.unsupervised.attribute.Remove;
 
 import java.io.File;
 
@@ -16,17 +13,7 @@ public class CSV2Arff {
             return;
         }
 
-        // Carica il CSV
-        CSVLoader loader = new CSVLoader();
-        loader.setSource(new File(args[0]));
-        Instances data = loader.getDataSet();
-
-        // Converti la prima colonna (1) da stringa a nominale (se necessario)
-        weka.filters.unsupervised.attribute.StringToNominal stn = new weka.filters.unsupervised.attribute.StringToNominal();
-        stn.setAttributeRange("1"); // Prima colonna
-        stn.setInputFormat(data);
-        data = Filter.useFilter(data, stn);
-
+        Instances data = load(new File(args[0]));
 
         // Salva in ARFF
         ArffSaver saver = new ArffSaver();
@@ -36,4 +23,11 @@ public class CSV2Arff {
 
         System.out.println("Conversion completed: " + args[1]);
     }
+
+    /**
+     * Carica il CSV delle metriche in un'unica passata (Method e le altre colonne testuali già nominali).
+     */
+    public static Instances load(File csvFile) throws Exception {
+        return MetricsCsvReader.read(csvFile);
+    }
 }
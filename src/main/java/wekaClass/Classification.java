@@ -1,7 +1,6 @@
 package wekaClass;
 
 import weka.core.Instances;
-import weka.core.converters.ConverterUtils.DataSource;
 import weka.classifiers.bayes.NaiveBayes;
 import weka.classifiers.trees.J48;
 import weka.classifiers.functions.SMO;
@@ -14,8 +13,7 @@ public class Classification {
         }
 
         String datasetPath = args[0];
-        DataSource source = new DataSource(datasetPath);
-        Instances dataset = source.getDataSet();
+        Instances dataset = DatasetLoader.load(datasetPath);
 
         if (dataset.classIndex() == -1) {
             dataset.setClassIndex(dataset.numAttributes() - 1);
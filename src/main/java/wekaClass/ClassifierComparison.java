@@ -1,7 +1,6 @@
 package wekaClass;
 
 import weka.core.Instances;
-import weka.core.converters.ConverterUtils.DataSource;
 import weka.classifiers.Classifier;
 import weka.classifiers.bayes.NaiveBayes;
 import weka.classifiers.lazy.IBk;
@@ -9,24 +8,45 @@ import weka.classifiers.trees.RandomForest;
 import weka.classifiers.Evaluation;
 import weka.classifiers.AbstractClassifier;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.io.FileWriter;
 import java.io.PrintWriter;
 
 public class ClassifierComparison {
+    private static final String ENV_THREADS = "CV_THREADS";
+    private static final String LOC_ATTRIBUTE = "LOC";
+
+    // Pool condiviso: più confronti concorrenti (es. i rami di PipelineRunner) non moltiplicano i thread
+    private static final ForkJoinPool POOL = new ForkJoinPool(Integer.parseInt(System.getenv()
+            .getOrDefault(ENV_THREADS, String.valueOf(Runtime.getRuntime().availableProcessors()))));
 
     public static void main(String[] args) throws Exception {
         // String datasetPath = args[0]; // rimosso l'uso da command line
         String datasetPath = "/Users/colaf/Documents/ISW2/BookkeeperAnalyzer/metrics_bookkeeper.arff"; // <-- Inserisci qui il path completo o relativo
-        DataSource source = new DataSource(datasetPath);
-        Instances data = source.getDataSet();
+        Instances data = DatasetLoader.load(datasetPath);
         if (data == null) {
             System.err.println("Errore: il file non è stato caricato correttamente. Controlla il percorso: " + datasetPath);
             return;
         }
+        compare(data, "classification_results.csv", null);
+    }
+
+    /**
+     * Confronta i classificatori con 10 run di 10-fold CV e scrive le medie in {@code resultsPath}.
+     * I fold vengono valutati in parallelo (pool di CV_THREADS thread) con risultati identici all'esecuzione seriale.
+     * Se {@code label} non è null viene aggiunta ai messaggi di avanzamento (più dataset in parallelo).
+     * Il dataset in input non viene modificato.
+     */
+    public static void compare(Instances dataset, String resultsPath, String label) throws Exception {
+        Instances data = new Instances(dataset);
         if (data.classIndex() == -1) {
             data.setClassIndex(data.numAttributes() - 1);
         }
+        String tag = label == null ? "" : " [" + label + "]";
 
         Classifier[] classifiers = {
             new RandomForest(),
@@ -42,48 +62,59 @@ public class ClassifierComparison {
 
         int numFolds = 10;
         int numRuns = 10;
-        Random rand = new Random(1);
 
-        PrintWriter writer = new PrintWriter(new FileWriter("classification_results.csv"));
-        writer.println("Classifier,Accuracy,Precision,Recall,F-Measure,AUC,Kappa,NPofB20");
+        // Randomizzazione e stratificazione una sola volta per run, condivise da tutti i classificatori
+        Instances[] runData = new Instances[numRuns];
+        for (int run = 0; run < numRuns; run++) {
+            Instances randData = new Instances(data);
+            randData.randomize(new Random(run));
+            if (randData.classAttribute().isNominal()) {
+                randData.stratify(numFolds);
+            }
+            runData[run] = randData;
+        }
 
+        // Un task per (classificatore, run, fold) sul pool work-stealing; i risultati vengono poi
+        // aggregati nell'ordine sequenziale, così medie e NPofB20 coincidono con l'esecuzione seriale
+        List<List<ForkJoinTask<FoldResult>>> tasks = new ArrayList<>();
         for (int i = 0; i < classifiers.length; i++) {
-            System.out.println("=== Evaluating: " + classifierNames[i] + " ===");
-
-            double totalAccuracy = 0, totalPrecision = 0, totalRecall = 0;
-            double totalFMeasure = 0, totalAUC = 0, totalKappa = 0;
-            java.util.List<double[]> probAndLabelList = new java.util.ArrayList<>();
-
+            List<ForkJoinTask<FoldResult>> classifierTasks = new ArrayList<>();
             for (int run = 0; run < numRuns; run++) {
-                Instances randData = new Instances(data);
-                randData.randomize(new Random(run));
-                if (randData.classAttribute().isNominal()) {
-                    randData.stratify(numFolds);
+                for (int n = 0; n < numFolds; n++) {
+                    Classifier prototype = classifiers[i];
+                    String name = classifierNames[i];
+                    Instances randData = runData[run];
+                    int runIndex = run;
+                    int fold = n;
+                    classifierTasks.add(POOL.submit(() -> {
+                        System.out.printf("→ %s%s - Run %d/%d - Fold %d/%d%n", name, tag, runIndex + 1, numRuns, fold + 1, numFolds);
+                        return evaluateFold(prototype, randData, numFolds, fold);
+                    }));
                 }
+            }
+            tasks.add(classifierTasks);
+        }
 
-                for (int n = 0; n < numFolds; n++) {
-                    System.out.printf("→ %s - Run %d/%d - Fold %d/%d%n", classifierNames[i], run + 1, numRuns, n + 1, numFolds);
-                    Instances train = randData.trainCV(numFolds, n);
-                    Instances test = randData.testCV(numFolds, n);
-
-                    Classifier clsCopy = AbstractClassifier.makeCopy(classifiers[i]);
-                    clsCopy.buildClassifier(train);
-                    Evaluation eval = new Evaluation(train);
-                    eval.evaluateModel(clsCopy, test);
-
-                    totalAccuracy += eval.pctCorrect();
-                    totalPrecision += eval.precision(1);
-                    totalRecall += eval.recall(1);
-                    totalFMeasure += eval.fMeasure(1);
-                    totalAUC += eval.areaUnderROC(1);
-                    totalKappa += eval.kappa();
-
-                    for (int j = 0; j < test.numInstances(); j++) {
-                        weka.core.Instance inst = test.instance(j);
-                        double[] dist = clsCopy.distributionForInstance(inst);
-                        double actual = inst.classValue(); // 1.0 se YES
-                        probAndLabelList.add(new double[]{dist[1], actual == 1.0 ? 1.0 : 0.0});
-                    }
+        PrintWriter writer = new PrintWriter(new FileWriter(resultsPath));
+        writer.println("Classifier,Accuracy,Precision,Recall,F-Measure,AUC,Kappa,NPofB20,Popt");
+
+        for (int i = 0; i < classifiers.length; i++) {
+            System.out.println("=== Evaluating: " + classifierNames[i] + tag + " ===");
+
+            double totalAccuracy = 0, totalPrecision = 0, totalRecall = 0;
+            double totalFMeasure = 0, totalAUC = 0, totalKappa = 0;
+            EffortMetrics effortMetrics = new EffortMetrics(data.numInstances() * numRuns);
+
+            for (ForkJoinTask<FoldResult> task : tasks.get(i)) {
+                FoldResult result = task.get();
+                totalAccuracy += result.accuracy;
+                totalPrecision += result.precision;
+                totalRecall += result.recall;
+                totalFMeasure += result.fMeasure;
+                totalAUC += result.auc;
+                totalKappa += result.kappa;
+                for (int j = 0; j < result.probabilities.length; j++) {
+                    effortMetrics.add(result.probabilities[j], result.labels[j] == 1.0, result.loc[j]);
                 }
             }
 
@@ -94,18 +125,14 @@ public class ClassifierComparison {
             System.out.printf("Average AUC: %.4f\n", totalAUC / (numRuns * numFolds));
             System.out.printf("Average Kappa: %.4f\n", totalKappa / (numRuns * numFolds));
 
-            probAndLabelList.sort((a, b) -> Double.compare(b[0], a[0]));
-            int topN = (int)(probAndLabelList.size() * 0.2);
-            int buggyInTop = 0;
-            for (int iTop = 0; iTop < topN; iTop++) {
-                if (probAndLabelList.get(iTop)[1] == 1.0) buggyInTop++;
-            }
-            double npofb20 = (double) buggyInTop / topN;
+            EffortMetrics.Result ranking = effortMetrics.compute();
+            double npofb20 = ranking.npofb20;
             System.out.printf("NPofB20: %.4f\n", npofb20);
+            System.out.printf("Popt: %.4f\n", ranking.popt);
 
             System.out.println();
 
-            writer.printf("%s,%.2f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f%n",
+            writer.printf("%s,%.2f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f%n",
                 classifierNames[i],
                 totalAccuracy / (numRuns * numFolds),
                 totalPrecision / (numRuns * numFolds),
@@ -113,8 +140,66 @@ public class ClassifierComparison {
                 totalFMeasure / (numRuns * numFolds),
                 totalAUC / (numRuns * numFolds),
                 totalKappa / (numRuns * numFolds),
-                npofb20);
+                npofb20,
+                ranking.popt);
         }
         writer.close();
     }
+
+    // Addestra e valuta un fold; le predizioni vengono raccolte durante la valutazione, senza una seconda passata
+    static FoldResult evaluateFold(Classifier prototype, Instances randData, int numFolds, int fold) throws Exception {
+        Instances train = randData.trainCV(numFolds, fold);
+        Instances test = randData.testCV(numFolds, fold);
+
+        Classifier clsCopy = AbstractClassifier.makeCopy(prototype);
+        clsCopy.buildClassifier(train);
+        Evaluation eval = new Evaluation(train);
+
+        FoldResult result = new FoldResult(test.numInstances());
+        // LOC per le metriche effort-aware; se la colonna è stata rimossa ogni metodo pesa 1
+        weka.core.Attribute locAttribute = test.attribute(LOC_ATTRIBUTE);
+        for (int j = 0; j < test.numInstances(); j++) {
+            weka.core.Instance inst = test.instance(j);
+            double[] dist = clsCopy.distributionForInstance(inst);
+            eval.evaluateModelOnceAndRecordPrediction(dist, inst);
+            double actual = inst.classValue(); // 1.0 se YES
+            result.probabilities[j] = dist[1];
+            result.labels[j] = actual == 1.0 ? 1.0 : 0.0;
+            result.loc[j] = locAttribute != null ? inst.value(locAttribute) : 1.0;
+        }
+
+        if (predictionUpdatesModel(clsCopy)) {
+            // Le predizioni della passata di valutazione hanno già aggiornato il modello: per restare identici
+            // all'esecuzione seriale le probabilità per NPofB20 vengono ricalcolate dopo, come prima
+            for (int j = 0; j < test.numInstances(); j++) {
+                result.probabilities[j] = clsCopy.distributionForInstance(test.instance(j))[1];
+            }
+        }
+
+        result.accuracy = eval.pctCorrect();
+        result.precision = eval.precision(1);
+        result.recall = eval.recall(1);
+        result.fMeasure = eval.fMeasure(1);
+        result.auc = eval.areaUnderROC(1);
+        result.kappa = eval.kappa();
+        return result;
+    }
+
+    // IBk aggiorna i range di normalizzazione della distanza a ogni distributionForInstance
+    private static boolean predictionUpdatesModel(Classifier classifier) {
+        return classifier instanceof IBk;
+    }
+
+    static class FoldResult {
+        double accuracy, precision, recall, fMeasure, auc, kappa;
+        final double[] probabilities;
+        final double[] labels;
+        final double[] loc;
+
+        FoldResult(int size) {
+            probabilities = new double[size];
+            labels = new double[size];
+            loc = new double[size];
+        }
+    }
 }
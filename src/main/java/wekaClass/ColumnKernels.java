@@ -0,0 +1,164 @@
+package wekaClass;
+
+import java.util.logging.Logger;
+
+/**
+ * Kernel numerici sulle colonne double[] dei dataset (somme, medie, varianza, covarianza, prodotto scalare,
+ * min/max, normalizzazione min-max e z-score), usati da CorrelationEngine e DatasetNormalizer.
+ *
+ * Se il modulo jdk.incubator.vector è presente (JVM avviata con {@code --add-modules jdk.incubator.vector})
+ * si usa l'implementazione SIMD di VectorKernels, altrimenti quella scalare; {@code VECTOR_KERNELS=false}
+ * forza la versione scalare. Le due implementazioni sommano in ordine diverso, quindi i risultati possono
+ * differire nell'ultimo bit. Tutti i metodi lavorano sui primi {@code n} elementi e non gestiscono i valori
+ * mancanti (NaN): le colonne vanno compattate prima.
+ */
+public final class ColumnKernels {
+    private static final String ENV_VECTOR_KERNELS = "VECTOR_KERNELS";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final Logger LOGGER = Logger.getLogger(ColumnKernels.class.getName());
+
+    /**
+     * Primitive implementate sia in forma scalare sia vettoriale.
+     */
+    interface Kernels {
+        double sum(double[] x, int n);
+
+        double dot(double[] x, double[] y, int n);
+
+        /** Somma di (x - meanX) * (y - meanY); con x == y è la somma dei quadrati degli scarti. */
+        double coMoment(double[] x, double meanX, double[] y, double meanY, int n);
+
+        /** {min, max} dei primi n valori. */
+        double[] minMax(double[] x, int n);
+
+        /** out[i] = (x[i] - offset) * factor; out può coincidere con x. */
+        void scale(double[] x, double offset, double factor, double[] out, int n);
+    }
+
+    private static final Kernels KERNELS = select();
+
+    private ColumnKernels() {
+        // Utility class
+    }
+
+    private static Kernels select() {
+        boolean enabled = !"false".equalsIgnoreCase(System.getenv(ENV_VECTOR_KERNELS));
+        if (enabled && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return new VectorKernels();
+            } catch (LinkageError e) {
+                LOGGER.warning(() -> "Vector API non utilizzabile, uso i kernel scalari: " + e);
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    /**
+     * true se è attiva l'implementazione SIMD.
+     */
+    public static boolean vectorized() {
+        return !(KERNELS instanceof ScalarKernels);
+    }
+
+    public static double sum(double[] x, int n) {
+        return KERNELS.sum(x, n);
+    }
+
+    public static double mean(double[] x, int n) {
+        return n == 0 ? Double.NaN : KERNELS.sum(x, n) / n;
+    }
+
+    /**
+     * Varianza campionaria (n - 1), calcolata in due passate: media, poi somma dei quadrati degli scarti.
+     */
+    public static double variance(double[] x, int n) {
+        if (n < 2) return Double.NaN;
+        double mean = mean(x, n);
+        return KERNELS.coMoment(x, mean, x, mean, n) / (n - 1);
+    }
+
+    public static double covariance(double[] x, double[] y, int n) {
+        if (n < 2) return Double.NaN;
+        return KERNELS.coMoment(x, mean(x, n), y, mean(y, n), n) / (n - 1);
+    }
+
+    public static double coMoment(double[] x, double meanX, double[] y, double meanY, int n) {
+        return KERNELS.coMoment(x, meanX, y, meanY, n);
+    }
+
+    public static double dot(double[] x, double[] y, int n) {
+        return KERNELS.dot(x, y, n);
+    }
+
+    public static double[] minMax(double[] x, int n) {
+        return KERNELS.minMax(x, n);
+    }
+
+    /**
+     * out[i] = (x[i] - offset) * factor; i NaN restano NaN, quindi si può applicare all'intera colonna.
+     */
+    public static void scale(double[] x, double offset, double factor, double[] out, int n) {
+        KERNELS.scale(x, offset, factor, out, n);
+    }
+
+    /**
+     * Normalizzazione min-max in [0, 1] (come il filtro Normalize di Weka); colonna costante → 0.
+     */
+    public static void normalizeMinMax(double[] x, double[] out, int n) {
+        double[] range = KERNELS.minMax(x, n);
+        double width = range[1] - range[0];
+        KERNELS.scale(x, range[0], width == 0 ? 0 : 1.0 / width, out, n);
+    }
+
+    /**
+     * Standardizzazione z-score con la deviazione standard campionaria (come Standardize di Weka); colonna costante → 0.
+     */
+    public static void zScore(double[] x, double[] out, int n) {
+        double mean = mean(x, n);
+        double deviation = Math.sqrt(variance(x, n));
+        KERNELS.scale(x, mean, deviation > 0 ? 1.0 / deviation : 0, out, n);
+    }
+
+    /**
+     * Implementazione di riferimento con cicli scalari.
+     */
+    static final class ScalarKernels implements Kernels {
+        @Override
+        public double sum(double[] x, int n) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) sum += x[i];
+            return sum;
+        }
+
+        @Override
+        public double dot(double[] x, double[] y, int n) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) sum += x[i] * y[i];
+            return sum;
+        }
+
+        @Override
+        public double coMoment(double[] x, double meanX, double[] y, double meanY, int n) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) sum += (x[i] - meanX) * (y[i] - meanY);
+            return sum;
+        }
+
+        @Override
+        public double[] minMax(double[] x, int n) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                min = Math.min(min, x[i]);
+                max = Math.max(max, x[i]);
+            }
+            return new double[]{min, max};
+        }
+
+        @Override
+        public void scale(double[] x, double offset, double factor, double[] out, int n) {
+            for (int i = 0; i < n; i++) out[i] = (x[i] - offset) * factor;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package wekaClass;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+import weka.core.Utils;
+import weka.core.converters.ArffSaver;
+import weka.core.converters.CSVSaver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Formato binario colonnare (.mcol) per i dataset di metriche, letto tramite FileChannel mappato in memoria.
+ *
+ * Layout (little endian): magic "MCOL", versione, relation, numero di righe, numero di colonne, indice
+ * della classe, poi per ogni colonna nome, tipo ed eventuale dizionario delle etichette. Seguono i dati,
+ * una colonna alla volta, ciascuna allineata a 8 byte: DOUBLE (NaN = mancante), INT (valori numerici interi,
+ * Integer.MIN_VALUE = mancante), NOMINAL e STRING (codici int nel dizionario, -1 = mancante).
+ *
+ * Il caricamento non fa parsing di testo: l'header è piccolo e le colonne sono viste sul file mappato.
+ * Uso: {@code ColumnarDataset <input.(csv|arff|mcol)> <output.(mcol|csv|arff)>}.
+ */
+public final class ColumnarDataset {
+    public static final String EXTENSION = ".mcol";
+
+    private static final int MAGIC = 0x4C4F434D; // "MCOL" in little endian
+    private static final int VERSION = 1;
+    private static final int INT_MISSING = Integer.MIN_VALUE;
+
+    private static final byte DOUBLE = 0;
+    private static final byte INT = 1;
+    private static final byte NOMINAL = 2;
+    private static final byte STRING = 3;
+
+    private final String relation;
+    private final int numRows;
+    private final int classIndex;
+    private final String[] names;
+    private final byte[] types;
+    private final List<List<String>> labels;
+    private final ByteBuffer[] columns;
+
+    private ColumnarDataset(String relation, int numRows, int classIndex, String[] names, byte[] types,
+                            List<List<String>> labels, ByteBuffer[] columns) {
+        this.relation = relation;
+        this.numRows = numRows;
+        this.classIndex = classIndex;
+        this.names = names;
+        this.types = types;
+        this.labels = labels;
+        this.columns = columns;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.out.println("Usage: java wekaClass.ColumnarDataset <input.(csv|arff|mcol)> <output.(mcol|csv|arff)>");
+            return;
+        }
+        Instances data = DatasetLoader.load(args[0]);
+        if (data == null) {
+            System.err.println("Errore: impossibile leggere " + args[0]);
+            return;
+        }
+        String output = args[1].toLowerCase();
+        if (output.endsWith(EXTENSION)) {
+            write(data, new File(args[1]));
+        } else if (output.endsWith(".csv")) {
+            CSVSaver saver = new CSVSaver();
+            saver.setInstances(data);
+            saver.setFile(new File(args[1]));
+            saver.writeBatch();
+        } else {
+            ArffSaver saver = new ArffSaver();
+            saver.setInstances(data);
+            saver.setFile(new File(args[1]));
+            saver.writeBatch();
+        }
+        System.out.println("Conversion completed: " + args[1]);
+    }
+
+    // ---- Lettura ----
+
+    /**
+     * Mappa il file in memoria e legge solo l'header; i dati restano sul file mappato.
+     */
+    public static ColumnarDataset open(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Non è un file " + EXTENSION + ": " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Versione " + EXTENSION + " non supportata: " + version);
+        }
+        String relation = readString(buffer);
+        int numRows = buffer.getInt();
+        int numColumns = buffer.getInt();
+        int classIndex = buffer.getInt();
+
+        String[] names = new String[numColumns];
+        byte[] types = new byte[numColumns];
+        List<List<String>> labels = new ArrayList<>(numColumns);
+        for (int c = 0; c < numColumns; c++) {
+            names[c] = readString(buffer);
+            types[c] = buffer.get();
+            List<String> columnLabels = null;
+            if (types[c] == NOMINAL || types[c] == STRING) {
+                int size = buffer.getInt();
+                columnLabels = new ArrayList<>(size);
+                for (int v = 0; v < size; v++) {
+                    columnLabels.add(readString(buffer));
+                }
+            }
+            labels.add(columnLabels);
+        }
+
+        ByteBuffer[] columns = new ByteBuffer[numColumns];
+        int position = align(buffer.position());
+        for (int c = 0; c < numColumns; c++) {
+            int length = numRows * (types[c] == DOUBLE ? Double.BYTES : Integer.BYTES);
+            columns[c] = buffer.slice(position, length).order(ByteOrder.LITTLE_ENDIAN);
+            position = align(position + length);
+        }
+        return new ColumnarDataset(relation, numRows, classIndex, names, types, labels, columns);
+    }
+
+    public int numRows() {
+        return numRows;
+    }
+
+    public int numColumns() {
+        return names.length;
+    }
+
+    public String columnName(int column) {
+        return names[column];
+    }
+
+    public int columnIndex(String name) {
+        return Arrays.asList(names).indexOf(name);
+    }
+
+    public boolean isNumeric(int column) {
+        return types[column] == DOUBLE || types[column] == INT;
+    }
+
+    /**
+     * Etichette di una colonna nominale o stringa (null per le colonne numeriche).
+     */
+    public List<String> labels(int column) {
+        return labels.get(column);
+    }
+
+    /**
+     * Valore nella convenzione di Weka: numero per le colonne numeriche, indice dell'etichetta per le altre,
+     * NaN se mancante.
+     */
+    public double value(int row, int column) {
+        ByteBuffer data = columns[column];
+        switch (types[column]) {
+            case DOUBLE:
+                return data.getDouble(row * Double.BYTES);
+            case INT: {
+                int v = data.getInt(row * Integer.BYTES);
+                return v == INT_MISSING ? Utils.missingValue() : v;
+            }
+            default: {
+                int code = data.getInt(row * Integer.BYTES);
+                return code < 0 ? Utils.missingValue() : code;
+            }
+        }
+    }
+
+    /**
+     * Copia una colonna in un array primitivo (convenzione di {@link #value}).
+     */
+    public double[] column(int column) {
+        double[] values = new double[numRows];
+        for (int r = 0; r < numRows; r++) {
+            values[r] = value(r, column);
+        }
+        return values;
+    }
+
+    /**
+     * Adattatore verso Weka: costruisce gli Instances con una riga double[] per istanza.
+     */
+    public Instances toInstances() {
+        ArrayList<Attribute> attributes = new ArrayList<>(names.length);
+        for (int c = 0; c < names.length; c++) {
+            switch (types[c]) {
+                case NOMINAL -> attributes.add(new Attribute(names[c], labels.get(c)));
+                case STRING -> {
+                    Attribute attribute = new Attribute(names[c], (List<String>) null);
+                    for (String label : labels.get(c)) {
+                        attribute.addStringValue(label);
+                    }
+                    attributes.add(attribute);
+                }
+                default -> attributes.add(new Attribute(names[c]));
+            }
+        }
+        List<double[]> rows = new ArrayList<>(numRows);
+        for (int r = 0; r < numRows; r++) {
+            rows.add(new double[names.length]);
+        }
+        // Riempimento per colonne: ogni colonna mappata viene letta in modo sequenziale
+        for (int c = 0; c < names.length; c++) {
+            for (int r = 0; r < numRows; r++) {
+                rows.get(r)[c] = value(r, c);
+            }
+        }
+        Instances data = new DirectInstances(relation, attributes, rows);
+        if (classIndex >= 0) {
+            data.setClassIndex(classIndex);
+        }
+        return data;
+    }
+
+    public static Instances load(File file) throws IOException {
+        return open(file).toInstances();
+    }
+
+    // ---- Scrittura ----
+
+    /**
+     * Scrive gli Instances in formato .mcol. Le colonne numeriche con soli valori interi vengono salvate come INT;
+     * gli attributi data vengono salvati come numerici.
+     */
+    public static void write(Instances data, File file) throws IOException {
+        int numRows = data.numInstances();
+        int numColumns = data.numAttributes();
+        byte[] types = new byte[numColumns];
+        for (int c = 0; c < numColumns; c++) {
+            Attribute attribute = data.attribute(c);
+            if (attribute.isNominal()) {
+                types[c] = NOMINAL;
+            } else if (attribute.isString()) {
+                types[c] = STRING;
+            } else if (attribute.isNumeric()) {
+                types[c] = isIntegral(data, c) ? INT : DOUBLE;
+            } else {
+                throw new IllegalArgumentException("Tipo di attributo non supportato: " + attribute.name());
+            }
+        }
+
+        // Dimensione dell'header
+        long headerSize = 4L * 2 + stringSize(data.relationName()) + 4L * 3;
+        for (int c = 0; c < numColumns; c++) {
+            headerSize += stringSize(data.attribute(c).name()) + 1;
+            if (types[c] == NOMINAL || types[c] == STRING) {
+                headerSize += 4;
+                for (int v = 0; v < data.attribute(c).numValues(); v++) {
+                    headerSize += stringSize(data.attribute(c).value(v));
+                }
+            }
+        }
+        long size = align(headerSize);
+        for (int c = 0; c < numColumns; c++) {
+            size = align(size + (long) numRows * (types[c] == DOUBLE ? Double.BYTES : Integer.BYTES));
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Dataset troppo grande per il formato " + EXTENSION);
+        }
+
+        Files.deleteIfExists(file.toPath());
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            writeString(buffer, data.relationName());
+            buffer.putInt(numRows);
+            buffer.putInt(numColumns);
+            buffer.putInt(data.classIndex());
+            for (int c = 0; c < numColumns; c++) {
+                Attribute attribute = data.attribute(c);
+                writeString(buffer, attribute.name());
+                buffer.put(types[c]);
+                if (types[c] == NOMINAL || types[c] == STRING) {
+                    buffer.putInt(attribute.numValues());
+                    for (int v = 0; v < attribute.numValues(); v++) {
+                        writeString(buffer, attribute.value(v));
+                    }
+                }
+            }
+
+            buffer.position(align(buffer.position()));
+            for (int c = 0; c < numColumns; c++) {
+                for (int r = 0; r < numRows; r++) {
+                    double value = data.instance(r).value(c);
+                    boolean missing = Utils.isMissingValue(value);
+                    switch (types[c]) {
+                        case DOUBLE -> buffer.putDouble(value);
+                        case INT -> buffer.putInt(missing ? INT_MISSING : (int) value);
+                        default -> buffer.putInt(missing ? -1 : (int) value);
+                    }
+                }
+                buffer.position(align(buffer.position()));
+            }
+            buffer.force();
+        }
+    }
+
+    private static boolean isIntegral(Instances data, int column) {
+        for (int r = 0; r < data.numInstances(); r++) {
+            double value = data.instance(r).value(column);
+            if (Utils.isMissingValue(value)) continue;
+            if (value != Math.rint(value) || value <= INT_MISSING || value > Integer.MAX_VALUE) return false;
+        }
+        return true;
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static long stringSize(String value) {
+        return 4L + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
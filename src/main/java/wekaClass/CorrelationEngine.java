@@ -0,0 +1,540 @@
+package wekaClass;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffLoader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Matrice di correlazione (Pearson e, su richiesta, Spearman) tra tutte le colonne numeriche e la classe,
+ * calcolata in streaming senza caricare il dataset in memoria.
+ *
+ * Il dataset viene letto a blocchi di righe: ogni blocco viene trasposto in colonne da un thread del pool,
+ * che ne calcola medie e co-momenti in due passate con {@link ColumnKernels} (SIMD se disponibile); i blocchi
+ * vengono uniti nell'ordine di lettura con la formula di Chan, numericamente stabile come Welford.
+ * In memoria restano solo i blocchi in lavorazione.
+ * Pearson richiede una passata; Spearman una seconda passata sui ranghi, calcolati da una tabella dei valori
+ * distinti raccolta nella prima (memoria proporzionale ai valori distinti, non alle righe).
+ *
+ * Sorgenti: CSV di metriche (colonne numeriche note a MetricsCsvReader), .mcol (colonne mappate in memoria)
+ * e ARFF (ArffLoader incrementale). La classe (Buggy, o l'ultimo attributo) vale 1 per YES e 0 altrimenti.
+ * Le righe con valori mancanti nelle colonne considerate vengono escluse.
+ */
+public class CorrelationEngine {
+    private static final int BATCH_SIZE = 16384;
+    private static final String CLASS_COLUMN = "Buggy";
+    private static final String POSITIVE_CLASS = "YES";
+
+    /**
+     * Risultato: nomi delle colonne (la classe è l'ultima), numero di righe usate e matrici simmetriche.
+     * {@code spearman} è null se non richiesto.
+     */
+    public static class Result {
+        public final List<String> columns;
+        public final long rows;
+        public final long skippedRows;
+        public final double[][] pearson;
+        public final double[][] spearman;
+
+        Result(List<String> columns, long rows, long skippedRows, double[][] pearson, double[][] spearman) {
+            this.columns = columns;
+            this.rows = rows;
+            this.skippedRows = skippedRows;
+            this.pearson = pearson;
+            this.spearman = spearman;
+        }
+    }
+
+    /**
+     * Medie e co-momenti di un gruppo di righe. {@code comoment[i][j]} (j ≤ i) è la somma dei prodotti
+     * degli scarti dalla media; sulla diagonale è l'M2 di Welford.
+     */
+    static final class Accumulator {
+        private final int width;
+        long count;
+        long skipped;
+        final double[] mean;
+        final double[][] comoment;
+        final ValueCounts[] distinct;
+        private final double[] delta;
+
+        Accumulator(int width, boolean collectDistinct) {
+            this.width = width;
+            mean = new double[width];
+            comoment = new double[width][];
+            for (int i = 0; i < width; i++) {
+                comoment[i] = new double[i + 1];
+            }
+            delta = new double[width];
+            distinct = collectDistinct ? new ValueCounts[width] : null;
+            if (collectDistinct) {
+                for (int i = 0; i < width; i++) distinct[i] = new ValueCounts();
+            }
+        }
+
+        /**
+         * Aggiunge un blocco di righe complete, per colonne: medie e co-momenti del blocco vengono calcolati in
+         * due passate con ColumnKernels e poi uniti a quelli accumulati.
+         */
+        void addColumns(double[][] columns, int n) {
+            if (n == 0) return;
+            Accumulator block = new Accumulator(width, false);
+            block.count = n;
+            for (int i = 0; i < width; i++) {
+                block.mean[i] = ColumnKernels.mean(columns[i], n);
+            }
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j <= i; j++) {
+                    block.comoment[i][j] = ColumnKernels.coMoment(columns[i], block.mean[i], columns[j], block.mean[j], n);
+                }
+            }
+            merge(block);
+        }
+
+        /**
+         * Unione di Chan et al.: medie pesate e co-momenti corretti con il prodotto degli scarti tra le medie.
+         */
+        void merge(Accumulator other) {
+            skipped += other.skipped;
+            if (other.count == 0) return;
+            if (count == 0) {
+                count = other.count;
+                System.arraycopy(other.mean, 0, mean, 0, width);
+                for (int i = 0; i < width; i++) System.arraycopy(other.comoment[i], 0, comoment[i], 0, i + 1);
+            } else {
+                long total = count + other.count;
+                double factor = (double) count * other.count / total;
+                for (int i = 0; i < width; i++) {
+                    delta[i] = other.mean[i] - mean[i];
+                }
+                for (int i = 0; i < width; i++) {
+                    for (int j = 0; j <= i; j++) {
+                        comoment[i][j] += other.comoment[i][j] + delta[i] * delta[j] * factor;
+                    }
+                }
+                for (int i = 0; i < width; i++) {
+                    mean[i] += delta[i] * other.count / total;
+                }
+                count = total;
+            }
+            if (distinct != null && other.distinct != null) {
+                for (int i = 0; i < width; i++) distinct[i].merge(other.distinct[i]);
+            }
+        }
+
+        double[][] correlation() {
+            double[][] result = new double[width][width];
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j <= i; j++) {
+                    double denominator = Math.sqrt(comoment[i][i] * comoment[j][j]);
+                    double r = i == j ? 1.0 : (denominator == 0 ? Double.NaN : comoment[i][j] / denominator);
+                    result[i][j] = r;
+                    result[j][i] = r;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Conteggio dei valori distinti di una colonna: hash table ad indirizzamento aperto su chiavi double.
+     */
+    static final class ValueCounts {
+        private long[] keys = new long[64];
+        private long[] counts = new long[64];
+        private boolean[] used = new boolean[64];
+        private int size;
+
+        void increment(double value) {
+            add(Double.doubleToLongBits(value == 0.0 ? 0.0 : value), 1);
+        }
+
+        void merge(ValueCounts other) {
+            for (int slot = 0; slot < other.keys.length; slot++) {
+                if (other.used[slot]) add(other.keys[slot], other.counts[slot]);
+            }
+        }
+
+        private void add(long key, long count) {
+            if (size * 2 >= keys.length) grow();
+            int mask = keys.length - 1;
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (used[slot] && keys[slot] != key) slot = (slot + 1) & mask;
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                size++;
+            }
+            counts[slot] += count;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldCounts = counts;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            counts = new long[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldUsed[slot]) add(oldKeys[slot], oldCounts[slot]);
+            }
+        }
+
+        /**
+         * Tabella dei ranghi: valori distinti ordinati e rango medio (1-based, pari merito mediati) di ciascuno.
+         */
+        RankTable ranks() {
+            double[] values = new double[size];
+            long[] valueCounts = new long[size];
+            int n = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (used[slot]) values[n++] = Double.longBitsToDouble(keys[slot]);
+            }
+            Arrays.sort(values);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (used[slot]) valueCounts[Arrays.binarySearch(values, Double.longBitsToDouble(keys[slot]))] = counts[slot];
+            }
+            double[] ranks = new double[size];
+            long before = 0;
+            for (int v = 0; v < size; v++) {
+                ranks[v] = before + (valueCounts[v] + 1) / 2.0;
+                before += valueCounts[v];
+            }
+            return new RankTable(values, ranks);
+        }
+    }
+
+    record RankTable(double[] values, double[] ranks) {
+        double rank(double value) {
+            return ranks[Arrays.binarySearch(values, value == 0.0 ? 0.0 : value)];
+        }
+    }
+
+    /**
+     * Blocco di righe da elaborare in un thread: scrive ogni riga in {@code row} e chiama il visitatore.
+     */
+    interface Batch {
+        void forEachRow(double[] row, Runnable visitor) throws Exception;
+    }
+
+    /**
+     * Sorgente di righe: consegna i blocchi nell'ordine del dataset.
+     */
+    interface Source {
+        List<String> columns();
+
+        void batches(BatchSink sink) throws Exception;
+    }
+
+    interface BatchSink {
+        void accept(Batch batch) throws Exception;
+    }
+
+    public static Result compute(String path, boolean spearman, int threads) throws Exception {
+        Source source = open(path);
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            int width = source.columns().size();
+            Accumulator values = run(source, pool, threads, width, spearman, null);
+            double[][] spearmanMatrix = null;
+            if (spearman) {
+                RankTable[] tables = new RankTable[width];
+                for (int i = 0; i < width; i++) tables[i] = values.distinct[i].ranks();
+                spearmanMatrix = run(source, pool, threads, width, false, tables).correlation();
+            }
+            return new Result(source.columns(), values.count, values.skipped, values.correlation(), spearmanMatrix);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    // Una passata sulla sorgente; con rankTables le righe vengono trasformate in ranghi
+    private static Accumulator run(Source source, ExecutorService pool, int threads, int width,
+                                   boolean collectDistinct, RankTable[] rankTables) throws Exception {
+        Accumulator total = new Accumulator(width, collectDistinct);
+        Deque<Future<Accumulator>> inFlight = new ArrayDeque<>();
+        source.batches(batch -> {
+            if (pool == null) {
+                total.merge(accumulate(batch, width, collectDistinct, rankTables));
+                return;
+            }
+            // Al massimo due blocchi per thread in memoria: si attende il più vecchio prima di leggerne altri
+            if (inFlight.size() >= threads * 2) total.merge(await(inFlight.poll()));
+            inFlight.add(pool.submit(() -> accumulate(batch, width, collectDistinct, rankTables)));
+        });
+        while (!inFlight.isEmpty()) {
+            total.merge(await(inFlight.poll()));
+        }
+        return total;
+    }
+
+    private static Accumulator accumulate(Batch batch, int width, boolean collectDistinct, RankTable[] rankTables) throws Exception {
+        Accumulator accumulator = new Accumulator(width, collectDistinct);
+        double[] row = new double[width];
+        double[][] columns = new double[width][BATCH_SIZE];
+        int[] size = {0};
+        batch.forEachRow(row, () -> {
+            for (int i = 0; i < width; i++) {
+                if (Double.isNaN(row[i])) {
+                    accumulator.skipped++;
+                    return;
+                }
+            }
+            int r = size[0]++;
+            for (int i = 0; i < width; i++) {
+                columns[i][r] = rankTables != null ? rankTables[i].rank(row[i]) : row[i];
+                if (collectDistinct) accumulator.distinct[i].increment(row[i]);
+            }
+        });
+        accumulator.addColumns(columns, size[0]);
+        return accumulator;
+    }
+
+    private static Accumulator await(Future<Accumulator> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    // ---- Sorgenti ----
+
+    static Source open(String path) throws Exception {
+        String lower = path.toLowerCase();
+        if (lower.endsWith(".csv")) return new CsvSource(new File(path));
+        if (lower.endsWith(ColumnarDataset.EXTENSION)) return new ColumnarSource(ColumnarDataset.open(new File(path)));
+        return new ArffSource(new File(path));
+    }
+
+    private static double classValue(String label) {
+        return label.equalsIgnoreCase(POSITIVE_CLASS) ? 1.0 : 0.0;
+    }
+
+    /**
+     * CSV di metriche: il thread di lettura raccoglie solo le righe di testo, il parsing avviene nei blocchi.
+     */
+    private static final class CsvSource implements Source {
+        private final File file;
+        private final List<String> columns = new ArrayList<>();
+        private final int[] indices;
+        private final int classIndex;
+        private final int numColumns;
+
+        CsvSource(File file) throws IOException {
+            this.file = file;
+            List<String> header = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                if (line == null) throw new IOException("CSV vuoto");
+                MetricsCsvReader.tokenize(line, header);
+            }
+            numColumns = header.size();
+            List<Integer> selected = new ArrayList<>();
+            int classColumn = -1;
+            for (int c = 0; c < header.size(); c++) {
+                String name = header.get(c).trim();
+                if (MetricsCsvReader.NUMERIC_COLUMNS.contains(name)) {
+                    selected.add(c);
+                    columns.add(name);
+                } else if (CLASS_COLUMN.equals(name)) {
+                    classColumn = c;
+                }
+            }
+            if (classColumn < 0) throw new IOException("Colonna " + CLASS_COLUMN + " non trovata in " + file);
+            columns.add(CLASS_COLUMN);
+            classIndex = classColumn;
+            indices = selected.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        @Override
+        public List<String> columns() {
+            return columns;
+        }
+
+        @Override
+        public void batches(BatchSink sink) throws Exception {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                reader.readLine();
+                List<String> lines = new ArrayList<>(BATCH_SIZE);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) continue;
+                    lines.add(line);
+                    if (lines.size() == BATCH_SIZE) {
+                        sink.accept(batch(lines));
+                        lines = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!lines.isEmpty()) sink.accept(batch(lines));
+            }
+        }
+
+        private Batch batch(List<String> lines) {
+            return (row, visitor) -> {
+                List<String> tokens = new ArrayList<>(numColumns);
+                for (String line : lines) {
+                    MetricsCsvReader.tokenize(line, tokens);
+                    if (tokens.size() != numColumns) {
+                        throw new IOException("Riga con " + tokens.size() + " colonne invece di " + numColumns + ": " + line);
+                    }
+                    for (int i = 0; i < indices.length; i++) {
+                        row[i] = parse(tokens.get(indices[i]));
+                    }
+                    String label = tokens.get(classIndex);
+                    row[indices.length] = label.isEmpty() || "?".equals(label) ? Double.NaN : classValue(label);
+                    visitor.run();
+                }
+            };
+        }
+
+        private static double parse(String token) {
+            if (token.isEmpty() || "?".equals(token)) return Double.NaN;
+            try {
+                return Double.parseDouble(token);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * File .mcol: i blocchi sono intervalli di righe letti direttamente dalle colonne mappate.
+     */
+    private static final class ColumnarSource implements Source {
+        private final ColumnarDataset dataset;
+        private final List<String> columns = new ArrayList<>();
+        private final int[] indices;
+        private final int classIndex;
+        private final double positive;
+
+        ColumnarSource(ColumnarDataset dataset) {
+            this.dataset = dataset;
+            int classColumn = dataset.columnIndex(CLASS_COLUMN);
+            if (classColumn < 0) classColumn = dataset.numColumns() - 1;
+            List<Integer> selected = new ArrayList<>();
+            for (int c = 0; c < dataset.numColumns(); c++) {
+                if (c != classColumn && dataset.isNumeric(c)) {
+                    selected.add(c);
+                    columns.add(dataset.columnName(c));
+                }
+            }
+            columns.add(dataset.columnName(classColumn));
+            classIndex = classColumn;
+            indices = selected.stream().mapToInt(Integer::intValue).toArray();
+            List<String> labels = dataset.labels(classColumn);
+            positive = labels == null ? Double.NaN : labels.indexOf(POSITIVE_CLASS);
+        }
+
+        @Override
+        public List<String> columns() {
+            return columns;
+        }
+
+        @Override
+        public void batches(BatchSink sink) throws Exception {
+            for (int start = 0; start < dataset.numRows(); start += BATCH_SIZE) {
+                int from = start;
+                int to = Math.min(dataset.numRows(), start + BATCH_SIZE);
+                sink.accept((row, visitor) -> {
+                    for (int r = from; r < to; r++) {
+                        for (int i = 0; i < indices.length; i++) {
+                            row[i] = dataset.value(r, indices[i]);
+                        }
+                        double label = dataset.value(r, classIndex);
+                        // Classe nominale: 1 per YES; classe numerica: valore così com'è
+                        row[indices.length] = Double.isNaN(positive) || Double.isNaN(label) ? label : (label == positive ? 1.0 : 0.0);
+                        visitor.run();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * ARFF letto in modo incrementale: ArffLoader non è thread-safe, quindi il parsing resta nel thread di
+     * lettura e i blocchi contengono già i valori.
+     */
+    private static final class ArffSource implements Source {
+        private final File file;
+        private final List<String> columns = new ArrayList<>();
+        private final int[] indices;
+        private final int classIndex;
+
+        ArffSource(File file) throws IOException {
+            this.file = file;
+            ArffLoader loader = new ArffLoader();
+            loader.setFile(file);
+            Instances structure = loader.getStructure();
+            Attribute classAttribute = structure.attribute(CLASS_COLUMN);
+            classIndex = classAttribute != null ? classAttribute.index() : structure.numAttributes() - 1;
+            List<Integer> selected = new ArrayList<>();
+            for (int a = 0; a < structure.numAttributes(); a++) {
+                if (a != classIndex && structure.attribute(a).isNumeric()) {
+                    selected.add(a);
+                    columns.add(structure.attribute(a).name());
+                }
+            }
+            columns.add(structure.attribute(classIndex).name());
+            indices = selected.stream().mapToInt(Integer::intValue).toArray();
+            loader.reset();
+        }
+
+        @Override
+        public List<String> columns() {
+            return columns;
+        }
+
+        @Override
+        public void batches(BatchSink sink) throws Exception {
+            ArffLoader loader = new ArffLoader();
+            loader.setFile(file);
+            Instances structure = loader.getStructure();
+            Attribute classAttribute = structure.attribute(classIndex);
+            int width = indices.length + 1;
+            double[][] rows = new double[BATCH_SIZE][width];
+            int size = 0;
+            Instance inst;
+            while ((inst = loader.getNextInstance(structure)) != null) {
+                double[] values = rows[size++];
+                for (int i = 0; i < indices.length; i++) {
+                    values[i] = inst.isMissing(indices[i]) ? Double.NaN : inst.value(indices[i]);
+                }
+                values[indices.length] = inst.isMissing(classIndex) ? Double.NaN
+                        : classAttribute.isNominal() ? classValue(inst.stringValue(classIndex)) : inst.value(classIndex);
+                if (size == BATCH_SIZE) {
+                    sink.accept(arrayBatch(rows, size));
+                    rows = new double[BATCH_SIZE][width];
+                    size = 0;
+                }
+            }
+            if (size > 0) sink.accept(arrayBatch(rows, size));
+            loader.reset();
+        }
+
+        private static Batch arrayBatch(double[][] rows, int size) {
+            return (row, visitor) -> {
+                for (int r = 0; r < size; r++) {
+                    System.arraycopy(rows[r], 0, row, 0, row.length);
+                    visitor.run();
+                }
+            };
+        }
+    }
+}
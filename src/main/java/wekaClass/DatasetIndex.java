@@ -0,0 +1,325 @@
+package wekaClass;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Indice di un dataset di metriche, salvato accanto al file come sidecar (dataset.arff.idx) e ricostruito
+ * solo quando il dataset cambia (dimensione o data di modifica diverse).
+ *
+ * Contiene una hash table ad indirizzamento aperto (codice Method, codice CommitHash) → prima riga, le righe
+ * raggruppate per release in ordine di versione ({@link WalkForwardEvaluation#RELEASE_ORDER}) e, per ogni
+ * release, la riga buggy con più Smells (AFMethod). Le chiavi sono i codici degli attributi nominali o stringa,
+ * quindi una ricerca costa due lookup nel dizionario dell'attributo più un accesso alla tabella.
+ */
+public final class DatasetIndex {
+    public static final String EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x58444E49; // "INDX"
+    private static final int VERSION = 1;
+    private static final long EMPTY = -1L;
+
+    private static final Logger LOGGER = Logger.getLogger(DatasetIndex.class.getName());
+
+    private final Instances data;
+    private final Attribute method;
+    private final Attribute commit;
+    private final long[] keys;
+    private final int[] rows;
+    private final List<String> releases;
+    private final int[] releaseStart;
+    private final int[] rowsByRelease;
+    private final int[] afRows;
+
+    private DatasetIndex(Instances data, long[] keys, int[] rows, List<String> releases, int[] releaseStart,
+                         int[] rowsByRelease, int[] afRows) {
+        this.data = data;
+        this.method = data.attribute("Method");
+        this.commit = data.attribute("CommitHash");
+        this.keys = keys;
+        this.rows = rows;
+        this.releases = releases;
+        this.releaseStart = releaseStart;
+        this.rowsByRelease = rowsByRelease;
+        this.afRows = afRows;
+    }
+
+    /**
+     * Indice del dataset letto da {@code path}: usa il sidecar se è aggiornato, altrimenti lo ricostruisce e
+     * prova a salvarlo (se la cartella non è scrivibile l'indice resta solo in memoria).
+     */
+    public static DatasetIndex forDataset(String path, Instances data) {
+        File datasetFile = new File(path);
+        File sidecar = new File(path + EXTENSION);
+        if (sidecar.isFile()) {
+            try {
+                DatasetIndex index = load(sidecar, datasetFile, data);
+                if (index != null) return index;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Indice non leggibile, verrà ricostruito: " + sidecar);
+            }
+        }
+        DatasetIndex index = build(data);
+        try {
+            index.save(sidecar, datasetFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Impossibile salvare l'indice " + sidecar);
+        }
+        return index;
+    }
+
+    public static DatasetIndex build(Instances data) {
+        // Hash table (metodo, commit) -> prima riga
+        Attribute method = data.attribute("Method");
+        Attribute commit = data.attribute("CommitHash");
+        long[] keys = new long[0];
+        int[] rows = new int[0];
+        if (method != null && commit != null) {
+            int capacity = Integer.highestOneBit(Math.max(2, data.numInstances()) * 2 - 1) << 1;
+            keys = new long[capacity];
+            rows = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < data.numInstances(); i++) {
+                Instance inst = data.instance(i);
+                if (inst.isMissing(method) || inst.isMissing(commit)) continue;
+                long key = key((int) inst.value(method), (int) inst.value(commit));
+                int slot = slot(keys, key);
+                if (keys[slot] == EMPTY) {
+                    // Prima occorrenza, come la ricerca lineare
+                    keys[slot] = key;
+                    rows[slot] = i;
+                }
+            }
+        }
+
+        // Gruppi per release in ordine di versione (counting sort) e AFMethod per release
+        Attribute release = data.attribute("ReleaseId");
+        List<String> releases = new ArrayList<>();
+        if (release == null || !release.isNominal()) {
+            return new DatasetIndex(data, keys, rows, releases, new int[1], new int[0], new int[0]);
+        }
+        for (int v = 0; v < release.numValues(); v++) {
+            releases.add(release.value(v));
+        }
+        releases.sort(WalkForwardEvaluation.RELEASE_ORDER);
+        int[] rank = new int[release.numValues()];
+        for (int k = 0; k < releases.size(); k++) {
+            rank[release.indexOfValue(releases.get(k))] = k;
+        }
+        int[] counts = new int[releases.size() + 1];
+        for (int i = 0; i < data.numInstances(); i++) {
+            if (!data.instance(i).isMissing(release)) {
+                counts[rank[(int) data.instance(i).value(release)] + 1]++;
+            }
+        }
+        for (int k = 1; k < counts.length; k++) {
+            counts[k] += counts[k - 1];
+        }
+        int[] releaseStart = counts.clone();
+        int[] rowsByRelease = new int[counts[counts.length - 1]];
+        for (int i = 0; i < data.numInstances(); i++) {
+            if (!data.instance(i).isMissing(release)) {
+                rowsByRelease[counts[rank[(int) data.instance(i).value(release)]]++] = i;
+            }
+        }
+
+        int[] afRows = new int[releases.size()];
+        Arrays.fill(afRows, -1);
+        Attribute smells = data.attribute("Smells");
+        Attribute buggy = data.attribute("Buggy");
+        if (smells != null && buggy != null) {
+            for (int k = 0; k < releases.size(); k++) {
+                double maxSmells = -1;
+                // Righe della release in ordine di dataset: a parità vince la prima, come la scansione lineare
+                for (int p = releaseStart[k]; p < releaseStart[k + 1]; p++) {
+                    Instance inst = data.instance(rowsByRelease[p]);
+                    if (inst.isMissing(buggy) || !inst.stringValue(buggy).equalsIgnoreCase("YES")) continue;
+                    double value = inst.value(smells);
+                    if (value > maxSmells) {
+                        maxSmells = value;
+                        afRows[k] = rowsByRelease[p];
+                    }
+                }
+            }
+        }
+        return new DatasetIndex(data, keys, rows, releases, releaseStart, rowsByRelease, afRows);
+    }
+
+    public Instances data() {
+        return data;
+    }
+
+    /**
+     * Riga con il metodo e il commit indicati (prima occorrenza), -1 se assente.
+     */
+    public int find(String methodName, String commitHash) {
+        if (method == null || commit == null) {
+            throw new IllegalStateException("Il dataset non contiene gli attributi Method e CommitHash");
+        }
+        int methodCode = method.indexOfValue(methodName);
+        int commitCode = commit.indexOfValue(commitHash);
+        if (methodCode < 0 || commitCode < 0) return -1;
+        long key = key(methodCode, commitCode);
+        int slot = slot(keys, key);
+        return keys[slot] == key ? rows[slot] : -1;
+    }
+
+    public Instance instance(String methodName, String commitHash) {
+        int row = find(methodName, commitHash);
+        return row < 0 ? null : data.instance(row);
+    }
+
+    /**
+     * Ricerca in blocco: per ogni coppia {metodo, commit} la riga trovata o -1.
+     */
+    public int[] findAll(List<String[]> pairs) {
+        int[] result = new int[pairs.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = find(pairs.get(i)[0], pairs.get(i)[1]);
+        }
+        return result;
+    }
+
+    /**
+     * Release in ordine di versione.
+     */
+    public List<String> releases() {
+        return releases;
+    }
+
+    /**
+     * Righe della release k-esima (in ordine di versione), nell'ordine del dataset.
+     */
+    public int[] releaseRows(int k) {
+        return Arrays.copyOfRange(rowsByRelease, releaseStart[k], releaseStart[k + 1]);
+    }
+
+    /**
+     * Metodo buggy con più Smells nella release indicata, null se la release non esiste o non ha buggy.
+     */
+    public Instance afMethod(String releaseName) {
+        int k = releases.indexOf(releaseName);
+        return k < 0 || afRows[k] < 0 ? null : data.instance(afRows[k]);
+    }
+
+    /**
+     * AFMethod della release più recente; null se questa non contiene metodi buggy.
+     */
+    public Instance afMethod() {
+        return releases.isEmpty() ? null : afMethod(releases.get(releases.size() - 1));
+    }
+
+    // ---- Sidecar ----
+
+    private void save(File sidecar, File datasetFile) throws IOException {
+        File temp = new File(sidecar.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(datasetFile.length());
+            out.writeLong(datasetFile.lastModified());
+            writeFingerprint(out, data);
+            out.writeInt(keys.length);
+            for (int slot = 0; slot < keys.length; slot++) {
+                out.writeLong(keys[slot]);
+                out.writeInt(rows[slot]);
+            }
+            out.writeInt(releases.size());
+            for (String release : releases) {
+                out.writeUTF(release);
+            }
+            writeInts(out, releaseStart);
+            writeInts(out, rowsByRelease);
+            writeInts(out, afRows);
+        }
+        Files.move(temp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Restituisce null se il sidecar non corrisponde più al dataset
+    private static DatasetIndex load(File sidecar, File datasetFile, Instances data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            if (in.readLong() != datasetFile.length() || in.readLong() != datasetFile.lastModified()) return null;
+            if (!readFingerprint(in, data)) return null;
+            int capacity = in.readInt();
+            long[] keys = new long[capacity];
+            int[] rows = new int[capacity];
+            for (int slot = 0; slot < capacity; slot++) {
+                keys[slot] = in.readLong();
+                rows[slot] = in.readInt();
+            }
+            int numReleases = in.readInt();
+            List<String> releases = new ArrayList<>(numReleases);
+            for (int k = 0; k < numReleases; k++) {
+                releases.add(in.readUTF());
+            }
+            return new DatasetIndex(data, keys, rows, releases, readInts(in), readInts(in), readInts(in));
+        }
+    }
+
+    // Righe e dimensione dei dizionari di Method/CommitHash/ReleaseId: i codici nel sidecar valgono solo se coincidono
+    private static void writeFingerprint(DataOutputStream out, Instances data) throws IOException {
+        out.writeInt(data.numInstances());
+        for (String name : new String[]{"Method", "CommitHash", "ReleaseId"}) {
+            Attribute attribute = data.attribute(name);
+            out.writeInt(attribute == null ? -1 : attribute.numValues());
+        }
+    }
+
+    private static boolean readFingerprint(DataInputStream in, Instances data) throws IOException {
+        if (in.readInt() != data.numInstances()) return false;
+        for (String name : new String[]{"Method", "CommitHash", "ReleaseId"}) {
+            Attribute attribute = data.attribute(name);
+            if (in.readInt() != (attribute == null ? -1 : attribute.numValues())) return false;
+        }
+        return true;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    // ---- Hash table ----
+
+    private static long key(int methodCode, int commitCode) {
+        return ((long) methodCode << 32) | (commitCode & 0xFFFFFFFFL);
+    }
+
+    // Slot della chiave o primo slot libero (probing lineare)
+    private static int slot(long[] keys, long key) {
+        if (keys.length == 0) return 0;
+        int mask = keys.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
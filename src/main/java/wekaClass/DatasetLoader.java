@@ -0,0 +1,30 @@
+package wekaClass;
+
+import weka.core.Instances;
+import weka.core.converters.ConverterUtils.DataSource;
+
+import java.io.File;
+
+/**
+ * Punto unico di caricamento dei dataset per gli strumenti di wekaClass: i CSV di metriche passano
+ * da MetricsCsvReader, i file .mcol da ColumnarDataset, gli altri formati (ARFF, ...) da DataSource di Weka.
+ */
+public final class DatasetLoader {
+    private DatasetLoader() {
+        // Utility class
+    }
+
+    /**
+     * Carica il dataset; come DataSource.getDataSet può restituire null se il formato non è riconosciuto.
+     */
+    public static Instances load(String path) throws Exception {
+        String lower = path.toLowerCase();
+        if (lower.endsWith(".csv")) {
+            return MetricsCsvReader.read(new File(path));
+        }
+        if (lower.endsWith(ColumnarDataset.EXTENSION)) {
+            return ColumnarDataset.load(new File(path));
+        }
+        return new DataSource(path).getDataSet();
+    }
+}
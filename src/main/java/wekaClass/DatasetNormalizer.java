@@ -0,0 +1,95 @@
+package wekaClass;
+
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffSaver;
+import weka.core.converters.CSVSaver;
+
+import java.io.File;
+
+/**
+ * Normalizza gli attributi numerici (esclusa la classe) con i kernel di ColumnKernels: min-max in [0, 1]
+ * oppure z-score. Le statistiche sono calcolate sui soli valori presenti; i mancanti restano mancanti.
+ */
+public class DatasetNormalizer {
+    private static final String ZSCORE_OPTION = "--zscore";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].equals(ZSCORE_OPTION))) {
+            System.out.println("Usage: java wekaClass.DatasetNormalizer <input.(arff|csv|mcol)> <output.(arff|csv|mcol)> [--zscore]");
+            return;
+        }
+        boolean zScore = args.length == 3;
+
+        Instances data = DatasetLoader.load(args[0]);
+        if (data.classIndex() < 0) {
+            data.setClassIndex(data.numAttributes() - 1);
+        }
+        int normalized = normalize(data, zScore);
+
+        File output = new File(args[1]);
+        String lower = output.getName().toLowerCase();
+        if (lower.endsWith(ColumnarDataset.EXTENSION)) {
+            ColumnarDataset.write(data, output);
+        } else if (lower.endsWith(".csv")) {
+            CSVSaver saver = new CSVSaver();
+            saver.setInstances(data);
+            saver.setFile(output);
+            saver.writeBatch();
+        } else {
+            ArffSaver saver = new ArffSaver();
+            saver.setInstances(data);
+            saver.setFile(output);
+            saver.writeBatch();
+        }
+        System.out.println(normalized + " attributi normalizzati (" + (zScore ? "z-score" : "min-max")
+                + ") ColumnKernels " + (ColumnKernels.vectorized() ? "SIMD" : "scalari") + ", salvato in " + output);
+    }
+
+    /**
+     * Normalizza sul posto gli attributi numerici diversi dalla classe; restituisce quanti ne ha modificati.
+     */
+    public static int normalize(Instances data, boolean zScore) {
+        int numRows = data.numInstances();
+        double[] present = new double[numRows];
+        double[][] columns = new double[data.numAttributes()][];
+        int normalized = 0;
+        for (int a = 0; a < data.numAttributes(); a++) {
+            if (a == data.classIndex() || !data.attribute(a).isNumeric()) continue;
+            double[] column = data.attributeToDoubleArray(a);
+            // Colonna compatta senza mancanti per le statistiche
+            int n = 0;
+            for (double value : column) {
+                if (!Double.isNaN(value)) present[n++] = value;
+            }
+            if (n == 0) continue;
+
+            double offset;
+            double factor;
+            if (zScore) {
+                offset = ColumnKernels.mean(present, n);
+                double deviation = Math.sqrt(ColumnKernels.variance(present, n));
+                factor = deviation > 0 ? 1.0 / deviation : 0;
+            } else {
+                double[] range = ColumnKernels.minMax(present, n);
+                offset = range[0];
+                factor = range[1] > range[0] ? 1.0 / (range[1] - range[0]) : 0;
+            }
+            ColumnKernels.scale(column, offset, factor, column, numRows);
+            columns[a] = column;
+            normalized++;
+        }
+
+        // Una nuova istanza per riga: setValue copierebbe il vettore dei valori ad ogni chiamata
+        for (int r = 0; r < numRows; r++) {
+            Instance instance = data.instance(r);
+            double[] values = instance.toDoubleArray();
+            for (int a = 0; a < values.length; a++) {
+                if (columns[a] != null) values[a] = columns[a][r];
+            }
+            data.set(r, new DenseInstance(instance.weight(), values));
+        }
+        return normalized;
+    }
+}
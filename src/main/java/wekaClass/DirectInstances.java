@@ -0,0 +1,25 @@
+package wekaClass;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances che adotta direttamente righe già costruite dai loader (Instances.add ne farebbe una copia).
+ * Gli array delle righe non vanno riutilizzati dal chiamante.
+ */
+class DirectInstances extends Instances {
+    private static final long serialVersionUID = 1L;
+
+    DirectInstances(String relation, ArrayList<Attribute> attributes, List<double[]> rows) {
+        super(relation, attributes, rows.size());
+        for (double[] row : rows) {
+            DenseInstance instance = new DenseInstance(1.0, row);
+            instance.setDataset(this);
+            m_Instances.add(instance);
+        }
+    }
+}
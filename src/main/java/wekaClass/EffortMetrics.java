@@ -0,0 +1,277 @@
+package wekaClass;
+
+import java.util.Arrays;
+
+/**
+ * Metriche di ranking effort-aware (NPofB20, Popt, curva recall/effort pesata per LOC) calcolate su array
+ * primitivi paralleli: nessun double[] per predizione e nessun ordinamento con boxing.
+ *
+ * Le predizioni si accumulano con {@link #add}; {@link #compute()} calcola tutte le metriche insieme.
+ * Riutilizzabile da qualsiasi strumento di valutazione (ClassifierComparison, WalkForwardEvaluation, ...).
+ */
+public class EffortMetrics {
+    private static final double TOP_FRACTION = 0.2;
+    private static final int CURVE_POINTS = 100;
+
+    private double[] scores;
+    private double[] labels;
+    private double[] effort;
+    private int size;
+
+    /**
+     * Risultato di {@link #compute()}. {@code effortCurve[i]} è la recall dei buggy ispezionando, in ordine
+     * di densità predetta, una frazione i/100 delle LOC totali.
+     */
+    public static class Result {
+        public final double npofb20;
+        public final double popt;
+        public final double[] effortCurve;
+
+        Result(double npofb20, double popt, double[] effortCurve) {
+            this.npofb20 = npofb20;
+            this.popt = popt;
+            this.effortCurve = effortCurve;
+        }
+    }
+
+    public EffortMetrics(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        scores = new double[capacity];
+        labels = new double[capacity];
+        effort = new double[capacity];
+    }
+
+    /**
+     * Aggiunge una predizione: probabilità della classe buggy, etichetta reale e LOC del metodo
+     * (con LOC non positive il metodo pesa 1).
+     */
+    public void add(double score, boolean buggy, double loc) {
+        if (size == scores.length) {
+            int capacity = size * 2;
+            scores = Arrays.copyOf(scores, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            effort = Arrays.copyOf(effort, capacity);
+        }
+        scores[size] = score;
+        labels[size] = buggy ? 1.0 : 0.0;
+        effort[size] = loc > 0 ? loc : 1.0;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tutte le metriche da un solo ordinamento: totali di LOC e buggy calcolati una volta e un unico ordine per
+     * densità predetta, condiviso da Popt e curva; NPofB20 usa la selezione O(n) sugli score.
+     */
+    public Result compute() {
+        Ranking ranking = new Ranking();
+        return new Result(npofb20(), popt(ranking), effortCurve(ranking));
+    }
+
+    // Totali e ordine del modello (densità predetta score/LOC decrescente, stabile), calcolati una sola volta
+    private final class Ranking {
+        final double totalEffort;
+        final double totalBugs;
+        final int[] modelOrder;
+
+        Ranking() {
+            double effortSum = 0, bugSum = 0;
+            double[] predictedDensity = new double[size];
+            for (int i = 0; i < size; i++) {
+                effortSum += effort[i];
+                bugSum += labels[i];
+                predictedDensity[i] = scores[i] / effort[i];
+            }
+            totalEffort = effortSum;
+            totalBugs = bugSum;
+            modelOrder = sortDescending(predictedDensity);
+        }
+    }
+
+    /**
+     * Frazione di buggy nel primo 20% delle predizioni per score decrescente. A parità di score vale
+     * l'ordine di inserimento, come con un ordinamento stabile; il 20% viene individuato con una selezione O(n).
+     */
+    public double npofb20() {
+        int topN = (int) (size * TOP_FRACTION);
+        if (topN == 0) return (double) 0 / topN; // NaN, come il calcolo originale su lista vuota
+        double threshold = kthLargest(Arrays.copyOf(scores, size), topN - 1);
+
+        int greater = 0;
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(scores[i], threshold) > 0) greater++;
+        }
+        int equalSlots = topN - greater;
+        int buggyInTop = 0;
+        for (int i = 0; i < size; i++) {
+            int cmp = Double.compare(scores[i], threshold);
+            if (cmp > 0 || (cmp == 0 && equalSlots-- > 0)) {
+                if (labels[i] == 1.0) buggyInTop++;
+            }
+        }
+        return (double) buggyInTop / topN;
+    }
+
+    /**
+     * Popt (Mende e Koschke): 1 - (area ottima - area del modello) / (area ottima - area peggiore) sulle curve
+     * recall/effort. Il modello ispeziona per densità predetta (score/LOC); l'ottimo per densità reale
+     * decrescente, il peggiore per densità reale crescente.
+     */
+    public double popt() {
+        return popt(new Ranking());
+    }
+
+    private double popt(Ranking ranking) {
+        if (ranking.totalBugs == 0) return Double.NaN;
+        // Densità reale: i buggy (1/LOC) per LOC crescente, poi i non buggy (densità 0) nell'ordine di inserimento;
+        // il peggiore è l'ordine inverso. Basta ordinare le LOC dei buggy
+        double[] buggyEffort = new double[(int) ranking.totalBugs];
+        for (int i = 0, b = 0; i < size; i++) {
+            if (labels[i] == 1.0) buggyEffort[b++] = effort[i];
+        }
+        Arrays.sort(buggyEffort);
+
+        Area optimal = new Area(ranking);
+        for (double e : buggyEffort) optimal.add(e, 1.0);
+        for (int i = 0; i < size; i++) {
+            if (labels[i] != 1.0) optimal.add(effort[i], labels[i]);
+        }
+        Area worst = new Area(ranking);
+        for (int i = size - 1; i >= 0; i--) {
+            if (labels[i] != 1.0) worst.add(effort[i], labels[i]);
+        }
+        for (int b = buggyEffort.length - 1; b >= 0; b--) worst.add(buggyEffort[b], 1.0);
+        Area model = new Area(ranking);
+        for (int i : ranking.modelOrder) model.add(effort[i], labels[i]);
+
+        if (optimal.area == worst.area) return Double.NaN;
+        return 1.0 - (optimal.area - model.area) / (optimal.area - worst.area);
+    }
+
+    /**
+     * Recall cumulativa a 0%, 1%, ..., 100% delle LOC ispezionate, nell'ordine di densità predetta.
+     */
+    public double[] effortCurve() {
+        return effortCurve(new Ranking());
+    }
+
+    private double[] effortCurve(Ranking ranking) {
+        double[] curve = new double[CURVE_POINTS + 1];
+        double totalEffort = ranking.totalEffort, totalBugs = ranking.totalBugs;
+        if (totalBugs == 0) {
+            Arrays.fill(curve, Double.NaN);
+            return curve;
+        }
+
+        double cumulativeEffort = 0, cumulativeBugs = 0;
+        int point = 1;
+        for (int i : ranking.modelOrder) {
+            double previousEffort = cumulativeEffort;
+            double previousRecall = cumulativeBugs / totalBugs;
+            cumulativeEffort += effort[i] / totalEffort;
+            cumulativeBugs += labels[i];
+            double recall = cumulativeBugs / totalBugs;
+            // Interpolazione lineare dentro il metodo che attraversa i punti della griglia
+            while (point <= CURVE_POINTS && (double) point / CURVE_POINTS <= cumulativeEffort) {
+                double x = (double) point / CURVE_POINTS;
+                double t = (x - previousEffort) / (cumulativeEffort - previousEffort);
+                curve[point] = previousRecall + t * (recall - previousRecall);
+                point++;
+            }
+        }
+        for (; point <= CURVE_POINTS; point++) {
+            curve[point] = 1.0;
+        }
+        return curve;
+    }
+
+    // Area sotto la curva recall/effort (trapezi), accumulata metodo per metodo nell'ordine di ispezione
+    private static final class Area {
+        private final double totalEffort;
+        private final double totalBugs;
+        double area;
+        private double x;
+        private double y;
+
+        Area(Ranking ranking) {
+            totalEffort = ranking.totalEffort;
+            totalBugs = ranking.totalBugs;
+        }
+
+        void add(double effort, double label) {
+            double nextX = x + effort / totalEffort;
+            double nextY = y + label / totalBugs;
+            area += (nextX - x) * (y + nextY) / 2;
+            x = nextX;
+            y = nextY;
+        }
+    }
+
+    /**
+     * Indici ordinati per chiave decrescente (Double.compare), stabile: merge sort su int[] senza boxing.
+     */
+    static int[] sortDescending(double[] key) {
+        int n = key.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    // A parità prende dalla metà sinistra: ordine stabile
+                    buffer[k++] = Double.compare(key[order[j]], key[order[i]]) > 0 ? order[j++] : order[i++];
+                }
+                while (i < mid) buffer[k++] = order[i++];
+                while (j < hi) buffer[k++] = order[j++];
+                System.arraycopy(buffer, lo, order, lo, hi - lo);
+            }
+        }
+        return order;
+    }
+
+    // k-esimo valore (0-based) in ordine decrescente secondo Double.compare; quickselect che riordina values
+    static double kthLargest(double[] values, int k) {
+        int lo = 0, hi = values.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double pivot = medianOfThree(values[lo], values[mid], values[hi]);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (Double.compare(values[i], pivot) > 0) i++;
+                while (Double.compare(values[j], pivot) < 0) j--;
+                if (i <= j) {
+                    double tmp = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return values[k];
+            }
+        }
+        return values[k];
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        if (Double.compare(a, b) > 0) {
+            double t = a; a = b; b = t;
+        }
+        if (Double.compare(b, c) > 0) {
+            b = c;
+            if (Double.compare(a, b) > 0) b = a;
+        }
+        return b;
+    }
+}
@@ -1,35 +1,71 @@
 package wekaClass;
 
-import weka.attributeSelection.CorrelationAttributeEval;
-import weka.core.Instances;
-import weka.core.converters.ConverterUtils.DataSource;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
 
 public class FeatureCorrelation {
+    private static final String SPEARMAN_OPTION = "--spearman";
+    private static final String THREADS_OPTION = "--threads";
+    private static final String OUTPUT_OPTION = "--output";
+
     public static void main(String[] args) throws Exception {
-        if (args.length != 1) {
-            System.out.println("Usage: java FeatureCorrelation <dataset.arff>");
+        if (args.length < 1) {
+            System.out.println("Usage: java FeatureCorrelation <dataset.(arff|csv|mcol)> [--spearman] [--threads <n>] [--output <matrix.csv>]");
             return;
         }
 
-        // Carica il dataset
-        DataSource source = new DataSource(args[0]);
-        Instances data = source.getDataSet();
+        boolean spearman = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String outputPath = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case SPEARMAN_OPTION -> spearman = true;
+                case THREADS_OPTION -> threads = Integer.parseInt(args[++i]);
+                case OUTPUT_OPTION -> outputPath = args[++i];
+                default -> {
+                    System.out.println("Opzione sconosciuta: " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        // Matrice completa in streaming: il dataset non viene caricato in memoria
+        CorrelationEngine.Result result = CorrelationEngine.compute(args[0], spearman, threads);
+        List<String> columns = result.columns;
+        int classColumn = columns.size() - 1;
 
-        // Imposta la classe target (ultima colonna)
-        if (data.classIndex() == -1) {
-            data.setClassIndex(data.numAttributes() - 1);
+        System.out.println("Correlazione di ciascun attributo con la classe (bugginess), " + result.rows + " istanze"
+                + (result.skippedRows > 0 ? " (" + result.skippedRows + " escluse per valori mancanti)" : "") + ":");
+        for (int i = 0; i < classColumn; i++) {
+            if (spearman) {
+                System.out.printf("%s -> %.4f (Spearman %.4f)%n", columns.get(i),
+                        result.pearson[i][classColumn], result.spearman[i][classColumn]);
+            } else {
+                System.out.printf("%s -> %.4f%n", columns.get(i), result.pearson[i][classColumn]);
+            }
         }
 
-        // Calcola la correlazione tra ciascun attributo e la classe
-        CorrelationAttributeEval evaluator = new CorrelationAttributeEval();
-        evaluator.buildEvaluator(data);
+        if (outputPath != null) {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(outputPath))) {
+                writeMatrix(writer, "pearson", columns, result.pearson);
+                if (spearman) {
+                    writeMatrix(writer, "spearman", columns, result.spearman);
+                }
+            }
+            System.out.println("Matrice di correlazione salvata in " + outputPath);
+        }
+    }
 
-        System.out.println("Correlazione di ciascun attributo con la classe (bugginess):");
-        for (int i = 0; i < data.numAttributes() - 1; i++) {
-            if (data.attribute(i).isNumeric()) {
-                double corr = evaluator.evaluateAttribute(i);
-                System.out.printf("%s -> %.4f%n", data.attribute(i).name(), corr);
+    private static void writeMatrix(PrintWriter writer, String method, List<String> columns, double[][] matrix) {
+        writer.println(method + "," + String.join(",", columns));
+        for (int i = 0; i < columns.size(); i++) {
+            StringBuilder line = new StringBuilder(columns.get(i));
+            for (int j = 0; j < columns.size(); j++) {
+                line.append(',').append(String.format(Locale.US, "%.6f", matrix[i][j]));
             }
+            writer.println(line);
         }
     }
 }
@@ -2,21 +2,20 @@ package wekaClass;
 
 import weka.core.Instances;
 import weka.core.Instance;
-import weka.core.converters.ConverterUtils.DataSource;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 
 public class FindAfMethod {
     public static void main(String[] args) throws Exception {
-        if (args.length != 1) {
-            System.out.println("Usage: java FindAfMethod <dataset.arff>");
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java FindAfMethod <dataset.arff> [release]");
             return;
         }
 
-        DataSource source = new DataSource(args[0]);
-        Instances data = source.getDataSet();
+        Instances data = DatasetLoader.load(args[0]);
         if (data.classIndex() == -1)
             data.setClassIndex(data.numAttributes() - 1);
 
@@ -28,58 +27,14 @@ public class FindAfMethod {
             return;
         }
 
-        int releaseIndex = data.attribute("ReleaseId").index();
         int methodIndex = data.attribute("Method").index();
-        int smellsIndex = data.attribute("Smells").index();
-        int bugginessIndex = data.attribute("Buggy").index();
-        int commitIndex = data.attribute("CommitHash").index();
 
-        // Trova la release massima (nominale, quindi confrontiamo come stringa)
-        String maxRelease = "";
-        for (int i = 0; i < data.numInstances(); i++) {
-            String release = data.instance(i).stringValue(releaseIndex);
-            if (release.compareTo(maxRelease) > 0)
-                maxRelease = release;
-        }
-
-        // Cerca tra i buggy della release massima il metodo con massimo Smells
-        double maxSmells = -1;
-        Instance afMethod = null;
-
-        for (int i = 0; i < data.numInstances(); i++) {
-            Instance inst = data.instance(i);
-            String release = inst.stringValue(releaseIndex);
-            String buggy = inst.stringValue(bugginessIndex);
-            if (release.equals(maxRelease) && buggy.equalsIgnoreCase("YES")) {
-                double smells = inst.value(smellsIndex);
-                if (smells > maxSmells) {
-                    maxSmells = smells;
-                    afMethod = inst;
-                }
-            }
-        }
+        // Con l'indice sidecar la ricerca non scandisce il dataset
+        DatasetIndex index = DatasetIndex.forDataset(args[0], data);
+        Instance afMethod = args.length == 2 ? index.afMethod(args[1]) : index.afMethod();
 
         if (afMethod != null) {
-            System.out.println("AFMethod trovato:");
-            System.out.println("Metodo: " + afMethod.stringValue(methodIndex));
-            System.out.println("Release: " + afMethod.stringValue(releaseIndex));
-            System.out.println("NSmells: " + afMethod.value(smellsIndex));
-            System.out.println("Bugginess: " + afMethod.stringValue(bugginessIndex));
-            System.out.println("Commit: " + afMethod.stringValue(commitIndex));
-
-            System.out.println("\nTutte le feature di AFMethod:");
-            for (int i = 0; i < afMethod.numAttributes(); i++) {
-                if (i != methodIndex && i != releaseIndex && i != bugginessIndex) {
-                    String attrName = data.attribute(i).name();
-                    String value;
-                    if (data.attribute(i).isNumeric()) {
-                        value = String.valueOf(afMethod.value(i));
-                    } else {
-                        value = afMethod.stringValue(i);
-                    }
-                    System.out.println(attrName + ": " + value);
-                }
-            }
+            printAfMethod(data, afMethod, System.out);
 
             int fileIndex = data.attribute("File").index();
 
@@ -104,7 +59,44 @@ public class FindAfMethod {
                 System.out.println("Errore durante il salvataggio del CSV: " + e.getMessage());
             }
         } else {
-            System.out.println("Nessun metodo buggy trovato nella release più recente.");
+            System.out.println(args.length == 2 ? "Nessun metodo buggy trovato nella release " + args[1] + "."
+                    : "Nessun metodo buggy trovato nella release più recente.");
+        }
+    }
+
+    /**
+     * Tra i metodi buggy della release più recente (in ordine di versione), quello con più Smells; null se assente.
+     */
+    public static Instance findAfMethod(Instances data) {
+        return DatasetIndex.build(data).afMethod();
+    }
+
+    public static void printAfMethod(Instances data, Instance afMethod, PrintStream out) {
+        int releaseIndex = data.attribute("ReleaseId").index();
+        int methodIndex = data.attribute("Method").index();
+        int smellsIndex = data.attribute("Smells").index();
+        int bugginessIndex = data.attribute("Buggy").index();
+        int commitIndex = data.attribute("CommitHash").index();
+
+        out.println("AFMethod trovato:");
+        out.println("Metodo: " + afMethod.stringValue(methodIndex));
+        out.println("Release: " + afMethod.stringValue(releaseIndex));
+        out.println("NSmells: " + afMethod.value(smellsIndex));
+        out.println("Bugginess: " + afMethod.stringValue(bugginessIndex));
+        out.println("Commit: " + afMethod.stringValue(commitIndex));
+
+        out.println("\nTutte le feature di AFMethod:");
+        for (int i = 0; i < afMethod.numAttributes(); i++) {
+            if (i != methodIndex && i != releaseIndex && i != bugginessIndex) {
+                String attrName = data.attribute(i).name();
+                String value;
+                if (data.attribute(i).isNumeric()) {
+                    value = String.valueOf(afMethod.value(i));
+                } else {
+                    value = afMethod.stringValue(i);
+                }
+                out.println(attrName + ": " + value);
+            }
         }
     }
 }
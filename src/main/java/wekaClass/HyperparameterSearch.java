@@ -0,0 +1,256 @@
+package wekaClass;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.Utils;
+
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ricerca degli iperparametri di J48, RandomForest e IBk (griglia completa o campione casuale della griglia)
+ * con successive halving sulla stessa cross-validation di ClassifierComparison (runs x folds, seed = run).
+ *
+ * Le run randomizzate e stratificate sono calcolate una volta e condivise da tutte le configurazioni. Al
+ * primo gradino ogni configurazione viene valutata su una run completa; poi sopravvive solo la frazione
+ * 1/eta migliore per la metrica scelta e il budget (numero di fold valutati, cumulativo) cresce di eta volte,
+ * fino a runs x folds. I fold di ogni gradino vengono valutati in parallelo su un pool di dimensione fissa.
+ * Le configurazioni arrivate in fondo hanno quindi le stesse medie che darebbe ClassifierComparison.
+ */
+public class HyperparameterSearch {
+    private static final String CLASSIFIERS_OPTION = "--classifiers";
+    private static final String RANDOM_OPTION = "--random";
+    private static final String SEED_OPTION = "--seed";
+    private static final String RUNS_OPTION = "--runs";
+    private static final String FOLDS_OPTION = "--folds";
+    private static final String ETA_OPTION = "--eta";
+    private static final String METRIC_OPTION = "--metric";
+    private static final String THREADS_OPTION = "--threads";
+
+    private static final String[] METRICS = {"accuracy", "precision", "recall", "f-measure", "auc", "kappa"};
+
+    /**
+     * Configurazione candidata con le somme delle metriche sui fold valutati finora.
+     */
+    static final class Configuration {
+        final String name;
+        final String className;
+        final String options;
+        final double[] sums = new double[METRICS.length];
+        int evaluated;
+
+        Configuration(String name, String className, String options) {
+            this.name = name;
+            this.className = className;
+            this.options = options;
+        }
+
+        double mean(int metric) {
+            return evaluated == 0 ? Double.NaN : sums[metric] / evaluated;
+        }
+
+        Classifier newClassifier() throws Exception {
+            Classifier classifier = (Classifier) Class.forName(className).getDeclaredConstructor().newInstance();
+            if (classifier instanceof OptionHandler handler) {
+                handler.setOptions(Utils.splitOptions(options));
+            }
+            return classifier;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java wekaClass.HyperparameterSearch <dataset.(arff|csv|mcol)> <results.csv>"
+                    + " [--classifiers J48,RandomForest,IBk] [--random <n>] [--seed <s>] [--runs <r>] [--folds <f>]"
+                    + " [--eta <e>] [--metric auc|f-measure|kappa|accuracy|precision|recall] [--threads <n>]");
+            return;
+        }
+        List<String> families = List.of("J48", "RandomForest", "IBk");
+        int sample = 0;
+        long seed = 1;
+        int runs = 10;
+        int folds = 10;
+        int eta = 3;
+        int metric = indexOfMetric("auc");
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case CLASSIFIERS_OPTION -> families = List.of(args[++i].split(","));
+                case RANDOM_OPTION -> sample = Integer.parseInt(args[++i]);
+                case SEED_OPTION -> seed = Long.parseLong(args[++i]);
+                case RUNS_OPTION -> runs = Integer.parseInt(args[++i]);
+                case FOLDS_OPTION -> folds = Integer.parseInt(args[++i]);
+                case ETA_OPTION -> eta = Integer.parseInt(args[++i]);
+                case METRIC_OPTION -> metric = indexOfMetric(args[++i]);
+                case THREADS_OPTION -> threads = Integer.parseInt(args[++i]);
+                default -> {
+                    System.out.println("Opzione sconosciuta: " + args[i]);
+                    return;
+                }
+            }
+        }
+        if (metric < 0 || eta < 2) {
+            System.out.println("Metrica o eta non validi");
+            return;
+        }
+
+        Instances data = DatasetLoader.load(args[0]);
+        if (data == null) {
+            System.err.println("Errore: il file non è stato caricato correttamente. Controlla il percorso: " + args[0]);
+            return;
+        }
+        List<Configuration> configurations = new ArrayList<>();
+        for (String family : families) {
+            configurations.addAll(grid(family.trim()));
+        }
+        if (sample > 0 && sample < configurations.size()) {
+            Collections.shuffle(configurations, new Random(seed));
+            configurations = new ArrayList<>(configurations.subList(0, sample));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Configuration> ranked = search(ModelStore.prepare(data), configurations, runs, folds, eta, metric, pool);
+            write(ranked, args[1]);
+            Configuration best = ranked.get(0);
+            System.out.printf(Locale.ROOT, "Migliore: %s %s (%s %.4f su %d fold); risultati in %s%n",
+                    best.name, best.options, METRICS[metric], best.mean(metric), best.evaluated, args[1]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Successive halving; restituisce tutte le configurazioni ordinate per budget raggiunto e poi per metrica.
+     */
+    static List<Configuration> search(Instances data, List<Configuration> configurations, int runs, int folds,
+                                      int eta, int metric, ExecutorService pool) throws Exception {
+        // Run randomizzate e stratificate una volta sola, come in ClassifierComparison
+        Instances[] runData = new Instances[runs];
+        for (int run = 0; run < runs; run++) {
+            Instances randData = new Instances(data);
+            randData.randomize(new Random(run));
+            if (randData.classAttribute().isNominal()) {
+                randData.stratify(folds);
+            }
+            runData[run] = randData;
+        }
+
+        Comparator<Configuration> byMetric = Comparator.comparingDouble((Configuration c) -> score(c, metric)).reversed();
+        int total = runs * folds;
+        List<Configuration> survivors = new ArrayList<>(configurations);
+        int budget = Math.min(folds, total);
+        int rung = 0;
+        while (true) {
+            long start = System.nanoTime();
+            List<Future<ClassifierComparison.FoldResult>> futures = new ArrayList<>();
+            List<Configuration> owners = new ArrayList<>();
+            for (Configuration configuration : survivors) {
+                Classifier prototype = configuration.newClassifier();
+                for (int unit = configuration.evaluated; unit < budget; unit++) {
+                    Instances randData = runData[unit / folds];
+                    int fold = unit % folds;
+                    futures.add(pool.submit(() -> ClassifierComparison.evaluateFold(prototype, randData, folds, fold)));
+                    owners.add(configuration);
+                }
+            }
+            for (int t = 0; t < futures.size(); t++) {
+                ClassifierComparison.FoldResult result;
+                try {
+                    result = futures.get(t).get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+                Configuration configuration = owners.get(t);
+                double[] values = {result.accuracy, result.precision, result.recall, result.fMeasure, result.auc, result.kappa};
+                for (int m = 0; m < values.length; m++) {
+                    configuration.sums[m] += values[m];
+                }
+                configuration.evaluated++;
+            }
+            survivors.sort(byMetric);
+            System.out.printf(Locale.ROOT, "Gradino %d: %d configurazioni su %d fold in %.1f s, migliore %s %s (%.4f)%n",
+                    rung, survivors.size(), budget, (System.nanoTime() - start) / 1e9,
+                    survivors.get(0).name, survivors.get(0).options, survivors.get(0).mean(metric));
+
+            if (budget == total) break;
+            survivors = new ArrayList<>(survivors.subList(0, Math.max(1, survivors.size() / eta)));
+            budget = (int) Math.min(total, (long) budget * eta);
+            rung++;
+        }
+
+        List<Configuration> ranked = new ArrayList<>(configurations);
+        ranked.sort(Comparator.comparingInt((Configuration c) -> c.evaluated).reversed().thenComparing(byMetric));
+        return ranked;
+    }
+
+    // Metrica per l'ordinamento; NaN (es. AUC su un fold senza positivi) va in fondo
+    private static double score(Configuration configuration, int metric) {
+        double value = configuration.mean(metric);
+        return Double.isNaN(value) ? Double.NEGATIVE_INFINITY : value;
+    }
+
+    /**
+     * Griglia di una famiglia di classificatori; la prima configurazione corrisponde alle opzioni usate finora.
+     */
+    static List<Configuration> grid(String family) {
+        List<Configuration> grid = new ArrayList<>();
+        switch (family) {
+            case "J48" -> {
+                for (String c : new String[]{"0.11", "0.05", "0.25", "0.5"}) {
+                    for (String m : new String[]{"3", "1", "2", "5", "10"}) {
+                        grid.add(new Configuration(family, "weka.classifiers.trees.J48", "-C " + c + " -M " + m));
+                    }
+                }
+            }
+            case "RandomForest" -> {
+                for (String trees : new String[]{"100", "50", "200"}) {
+                    for (String features : new String[]{"0", "2", "4", "8"}) {
+                        for (String depth : new String[]{"0", "10", "20"}) {
+                            grid.add(new Configuration(family, "weka.classifiers.trees.RandomForest",
+                                    "-I " + trees + " -K " + features + " -depth " + depth));
+                        }
+                    }
+                }
+            }
+            case "IBk" -> {
+                for (String k : new String[]{"1", "3", "5", "10", "20"}) {
+                    for (String weighting : new String[]{"", " -I", " -F"}) {
+                        grid.add(new Configuration(family, "weka.classifiers.lazy.IBk", "-K " + k + weighting));
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Classificatore non supportato: " + family);
+        }
+        return grid;
+    }
+
+    private static int indexOfMetric(String name) {
+        for (int m = 0; m < METRICS.length; m++) {
+            if (METRICS[m].equalsIgnoreCase(name)) return m;
+        }
+        return -1;
+    }
+
+    private static void write(List<Configuration> ranked, String resultsPath) throws Exception {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(resultsPath))) {
+            writer.println("Rank,Classifier,Options,Folds,Accuracy,Precision,Recall,F-Measure,AUC,Kappa");
+            int rank = 1;
+            for (Configuration c : ranked) {
+                writer.printf(Locale.ROOT, "%d,%s,%s,%d,%.2f,%.4f,%.4f,%.4f,%.4f,%.4f%n", rank++, c.name, c.options,
+                        c.evaluated, c.mean(0), c.mean(1), c.mean(2), c.mean(3), c.mean(4), c.mean(5));
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package wekaClass;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.UpdateableClassifier;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Addestramento e valutazione out-of-core con classificatori aggiornabili (NaiveBayesUpdateable, HoeffdingTree, ...):
+ * le righe vengono lette in streaming da {@link RowStreams} e passate una alla volta a updateClassifier, senza
+ * mai costruire gli Instances del dataset. La memoria dipende dal modello, non dal numero di righe.
+ *
+ * Si addestra sugli attributi numerici e nominali non identificativi (Method, ReleaseId, File e CommitHash
+ * vengono ignorati, come le stringhe) con Buggy come classe. La valutazione è una passata su un file separato
+ * oppure, con {@code --holdout k}, sulle righe del file di training con indice multiplo di k, escluse
+ * dall'addestramento. Le metriche sono calcolate in modo incrementale da {@link StreamingMetrics}.
+ */
+public class IncrementalLearner {
+    private static final String CLASSIFIER_OPTION = "--classifier";
+    private static final String TEST_OPTION = "--test";
+    private static final String HOLDOUT_OPTION = "--holdout";
+    private static final String DEFAULT_CLASSIFIER = "weka.classifiers.bayes.NaiveBayesUpdateable";
+    private static final int DEFAULT_HOLDOUT = 10;
+    private static final String CLASS_ATTRIBUTE = "Buggy";
+    private static final String POSITIVE_CLASS = "YES";
+    private static final List<String> ID_ATTRIBUTES = Arrays.asList("Method", "ReleaseId", "File", "CommitHash");
+
+    /**
+     * Metriche binarie (classe positiva YES) aggiornate riga per riga in memoria costante: matrice di confusione
+     * e, per l'AUC, un istogramma per classe della probabilità di YES in scala logit ({@value #BINS} intervalli
+     * su [-{@value #LOGIT_LIMIT}, {@value #LOGIT_LIMIT}], così restano distinte anche le probabilità molto vicine
+     * a 0 o 1 tipiche di NaiveBayes). A parità di intervallo la coppia conta 1/2: l'errore rispetto all'AUC
+     * esatta è al più la frazione di coppie che cadono nello stesso intervallo.
+     */
+    public static final class StreamingMetrics {
+        static final int BINS = 4096;
+        static final double LOGIT_LIMIT = 40;
+
+        private final long[] positiveBins = new long[BINS];
+        private final long[] negativeBins = new long[BINS];
+        long truePositives;
+        long falsePositives;
+        long trueNegatives;
+        long falseNegatives;
+
+        public void add(double[] distribution, int positiveIndex, boolean positive) {
+            double probability = distribution[positiveIndex];
+            boolean predictedPositive = Utils.maxIndex(distribution) == positiveIndex;
+            double logit = Math.max(-LOGIT_LIMIT, Math.min(LOGIT_LIMIT, Math.log(probability) - Math.log1p(-probability)));
+            int bin = Math.min(BINS - 1, (int) ((logit + LOGIT_LIMIT) / (2 * LOGIT_LIMIT) * BINS));
+            if (positive) {
+                positiveBins[bin]++;
+                if (predictedPositive) truePositives++; else falseNegatives++;
+            } else {
+                negativeBins[bin]++;
+                if (predictedPositive) falsePositives++; else trueNegatives++;
+            }
+        }
+
+        public long count() {
+            return truePositives + falsePositives + trueNegatives + falseNegatives;
+        }
+
+        public double accuracy() {
+            return ratio(truePositives + trueNegatives, count());
+        }
+
+        public double precision() {
+            return ratio(truePositives, truePositives + falsePositives);
+        }
+
+        public double recall() {
+            return ratio(truePositives, truePositives + falseNegatives);
+        }
+
+        public double fMeasure() {
+            double precision = precision();
+            double recall = recall();
+            return precision + recall == 0 ? 0 : 2 * precision * recall / (precision + recall);
+        }
+
+        public double kappa() {
+            double n = count();
+            if (n == 0) return 0;
+            double observed = (truePositives + trueNegatives) / n;
+            double expected = ((truePositives + falsePositives) * (double) (truePositives + falseNegatives)
+                    + (trueNegatives + falseNegatives) * (double) (trueNegatives + falsePositives)) / (n * n);
+            return expected == 1 ? 1 : (observed - expected) / (1 - expected);
+        }
+
+        /**
+         * Probabilità che un positivo abbia punteggio maggiore di un negativo (Mann-Whitney sugli istogrammi).
+         */
+        public double auc() {
+            long positives = truePositives + falseNegatives;
+            long negatives = trueNegatives + falsePositives;
+            if (positives == 0 || negatives == 0) return Double.NaN;
+            double pairs = 0;
+            long negativesBelow = 0;
+            for (int bin = 0; bin < BINS; bin++) {
+                pairs += positiveBins[bin] * (negativesBelow + negativeBins[bin] / 2.0);
+                negativesBelow += negativeBins[bin];
+            }
+            return pairs / ((double) positives * negatives);
+        }
+
+        private static double ratio(long numerator, long denominator) {
+            return denominator == 0 ? 0 : (double) numerator / denominator;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: java wekaClass.IncrementalLearner <train.(arff|csv|mcol)> [--test <test.(arff|csv|mcol)> | --holdout <k>]"
+                    + " [--classifier \"<classe> [opzioni]\"]");
+            return;
+        }
+        String classifierSpec = DEFAULT_CLASSIFIER;
+        String testPath = null;
+        int holdout = DEFAULT_HOLDOUT;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case CLASSIFIER_OPTION -> classifierSpec = args[++i];
+                case TEST_OPTION -> testPath = args[++i];
+                case HOLDOUT_OPTION -> holdout = Integer.parseInt(args[++i]);
+                default -> {
+                    System.out.println("Opzione sconosciuta: " + args[i]);
+                    return;
+                }
+            }
+        }
+        if (testPath == null && holdout < 2) {
+            System.out.println("--holdout deve essere almeno 2");
+            return;
+        }
+
+        Instances header = trainingHeader(RowStreams.structure(args[0]));
+        Classifier classifier = newClassifier(classifierSpec);
+        int every = testPath == null ? holdout : 0;
+
+        long start = System.nanoTime();
+        long trained = train(classifier, header, args[0], every);
+        System.out.printf(Locale.ROOT, "Addestramento su %d righe in %.1f s (heap usato %d MB)%n",
+                trained, (System.nanoTime() - start) / 1e9, usedHeapMegabytes());
+
+        start = System.nanoTime();
+        StreamingMetrics metrics = testPath != null
+                ? evaluate(classifier, header, testPath, 0)
+                : evaluate(classifier, header, args[0], every);
+        System.out.printf(Locale.ROOT, "Valutazione su %d righe in %.1f s (heap usato %d MB)%n",
+                metrics.count(), (System.nanoTime() - start) / 1e9, usedHeapMegabytes());
+        System.out.printf(Locale.ROOT, "Accuracy: %.2f%%%nPrecision: %.4f%nRecall: %.4f%nF-Measure: %.4f%nAUC: %.4f%nKappa: %.4f%n",
+                metrics.accuracy() * 100, metrics.precision(), metrics.recall(), metrics.fMeasure(), metrics.auc(), metrics.kappa());
+    }
+
+    /**
+     * Header di training ricavato dallo schema della sorgente: attributi numerici e nominali non identificativi,
+     * con Buggy (o l'ultimo attributo nominale) come classe.
+     */
+    static Instances trainingHeader(Instances structure) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        int classIndex = -1;
+        for (int a = 0; a < structure.numAttributes(); a++) {
+            Attribute attribute = structure.attribute(a);
+            if (ID_ATTRIBUTES.contains(attribute.name()) || !(attribute.isNumeric() || attribute.isNominal())) continue;
+            if (attribute.name().equals(CLASS_ATTRIBUTE)) {
+                classIndex = attributes.size();
+            }
+            attributes.add(attribute.copy(attribute.name()));
+        }
+        for (int a = attributes.size() - 1; classIndex < 0 && a >= 0; a--) {
+            if (attributes.get(a).isNominal()) classIndex = a;
+        }
+        if (classIndex < 0) throw new IllegalArgumentException("Nessun attributo nominale da usare come classe");
+        Instances header = new Instances(structure.relationName(), attributes, 0);
+        header.setClassIndex(classIndex);
+        return header;
+    }
+
+    /**
+     * Addestra il classificatore in streaming; con {@code every} > 0 salta le righe con indice multiplo di every.
+     */
+    static long train(Classifier classifier, Instances header, String path, int every) throws Exception {
+        classifier.buildClassifier(new Instances(header, 0));
+        UpdateableClassifier updateable = (UpdateableClassifier) classifier;
+        long row = 0;
+        long trained = 0;
+        try (RowStreams.RowReader reader = RowStreams.open(path, header)) {
+            for (Instance instance = reader.next(); instance != null; instance = reader.next(), row++) {
+                if ((every > 0 && row % every == 0) || instance.classIsMissing()) continue;
+                updateable.updateClassifier(instance);
+                trained++;
+            }
+        }
+        return trained;
+    }
+
+    /**
+     * Valuta il classificatore in una passata; con {@code every} > 0 solo sulle righe con indice multiplo di every.
+     */
+    static StreamingMetrics evaluate(Classifier classifier, Instances header, String path, int every) throws Exception {
+        StreamingMetrics metrics = new StreamingMetrics();
+        int positiveIndex = header.classAttribute().indexOfValue(POSITIVE_CLASS);
+        if (positiveIndex < 0) positiveIndex = 1;
+        long row = 0;
+        try (RowStreams.RowReader reader = RowStreams.open(path, header)) {
+            for (Instance instance = reader.next(); instance != null; instance = reader.next(), row++) {
+                if ((every > 0 && row % every != 0) || instance.classIsMissing()) continue;
+                metrics.add(classifier.distributionForInstance(instance), positiveIndex,
+                        (int) instance.classValue() == positiveIndex);
+            }
+        }
+        return metrics;
+    }
+
+    private static Classifier newClassifier(String spec) throws Exception {
+        String[] options = Utils.splitOptions(spec);
+        String className = options[0];
+        options[0] = "";
+        Classifier classifier = (Classifier) Class.forName(className).getDeclaredConstructor().newInstance();
+        if (!(classifier instanceof UpdateableClassifier)) {
+            throw new IllegalArgumentException(className + " non implementa UpdateableClassifier");
+        }
+        if (classifier instanceof OptionHandler handler) {
+            handler.setOptions(options);
+        }
+        return classifier;
+    }
+
+    private static long usedHeapMegabytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+    }
+}
@@ -0,0 +1,198 @@
+package wekaClass;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lettore in streaming dei CSV di metriche (Method,ReleaseId,LOC,...,Buggy,File,CommitHash) che costruisce
+ * gli Instances in un'unica passata, al posto di CSVLoader + StringToNominal.
+ *
+ * Lo schema è noto: le colonne numeriche vengono parsate direttamente nella riga double[] e quelle nominali
+ * codificate a dizionario man mano (valori nell'ordine di prima comparsa, come CSVLoader). Buggy ha sempre
+ * i valori {NO,YES}, così YES è l'indice 1 qualunque sia la prima riga. Le colonne non previste diventano
+ * numeriche se tutti i valori sono numerici, altrimenti nominali. Valori vuoti o "?" sono mancanti.
+ */
+public class MetricsCsvReader {
+    static final Set<String> NUMERIC_COLUMNS = Set.of(
+            "LOC", "ParamCount", "Statements", "Cyclomatic", "Nesting", "Cognitive", "Smells",
+            "Modifications", "Authors", "NameLength", "TSLC", "FanOut");
+    private static final Set<String> NOMINAL_COLUMNS = Set.of("Method", "ReleaseId", "File", "CommitHash");
+    private static final String CLASS_COLUMN = "Buggy";
+    private static final List<String> CLASS_VALUES = List.of("NO", "YES");
+    private static final String MISSING = "?";
+
+    private enum Kind { NUMERIC, NOMINAL, INFERRED }
+
+    // Dizionario di una colonna nominale (o inferita), in ordine di prima comparsa
+    private static final class Dictionary {
+        final Map<String, Integer> index = new HashMap<>();
+        final List<String> labels = new ArrayList<>();
+
+        Dictionary(List<String> initial) {
+            for (String label : initial) {
+                encode(label);
+            }
+        }
+
+        int encode(String label) {
+            Integer code = index.get(label);
+            if (code == null) {
+                code = labels.size();
+                index.put(label, code);
+                labels.add(label);
+            }
+            return code;
+        }
+    }
+
+    public static Instances read(File csvFile) throws IOException {
+        String name = csvFile.getName();
+        String relation = name.toLowerCase().endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+        try (BufferedReader reader = Files.newBufferedReader(csvFile.toPath(), StandardCharsets.UTF_8)) {
+            return read(reader, relation);
+        }
+    }
+
+    public static Instances read(BufferedReader reader, String relation) throws IOException {
+        String headerLine = reader.readLine();
+        if (headerLine == null) throw new IOException("CSV vuoto");
+        List<String> header = new ArrayList<>();
+        tokenize(headerLine, header);
+        int numColumns = header.size();
+
+        Kind[] kinds = new Kind[numColumns];
+        Dictionary[] dictionaries = new Dictionary[numColumns];
+        for (int c = 0; c < numColumns; c++) {
+            String column = header.get(c).trim();
+            header.set(c, column);
+            if (NUMERIC_COLUMNS.contains(column)) {
+                kinds[c] = Kind.NUMERIC;
+            } else if (CLASS_COLUMN.equals(column)) {
+                kinds[c] = Kind.NOMINAL;
+                dictionaries[c] = new Dictionary(CLASS_VALUES);
+            } else {
+                kinds[c] = NOMINAL_COLUMNS.contains(column) ? Kind.NOMINAL : Kind.INFERRED;
+                dictionaries[c] = new Dictionary(List.of());
+            }
+        }
+
+        // Le colonne inferite conservano sia il codice a dizionario sia il valore numerico, se parsabile
+        boolean[] inferredNumeric = new boolean[numColumns];
+        Arrays.fill(inferredNumeric, true);
+        List<double[]> inferredValues = new ArrayList<>();
+
+        List<double[]> rows = new ArrayList<>();
+        List<String> tokens = new ArrayList<>(numColumns);
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) continue;
+            tokenize(line, tokens);
+            if (tokens.size() != numColumns) {
+                throw new IOException("Riga " + lineNumber + ": attese " + numColumns + " colonne, trovate " + tokens.size());
+            }
+            double[] row = new double[numColumns];
+            double[] inferred = null;
+            for (int c = 0; c < numColumns; c++) {
+                String token = tokens.get(c);
+                if (token.isEmpty() || MISSING.equals(token)) {
+                    row[c] = Utils.missingValue();
+                    continue;
+                }
+                switch (kinds[c]) {
+                    case NUMERIC -> row[c] = parseNumber(token, header.get(c), lineNumber);
+                    case NOMINAL -> row[c] = dictionaries[c].encode(token);
+                    case INFERRED -> {
+                        row[c] = dictionaries[c].encode(token);
+                        if (inferredNumeric[c]) {
+                            if (inferred == null) {
+                                inferred = new double[numColumns];
+                            }
+                            try {
+                                inferred[c] = Double.parseDouble(token);
+                            } catch (NumberFormatException e) {
+                                inferredNumeric[c] = false;
+                            }
+                        }
+                    }
+                }
+            }
+            rows.add(row);
+            inferredValues.add(inferred);
+        }
+
+        ArrayList<Attribute> attributes = new ArrayList<>(numColumns);
+        for (int c = 0; c < numColumns; c++) {
+            boolean numeric = kinds[c] == Kind.NUMERIC || (kinds[c] == Kind.INFERRED && inferredNumeric[c]);
+            attributes.add(numeric ? new Attribute(header.get(c)) : new Attribute(header.get(c), dictionaries[c].labels));
+            if (kinds[c] == Kind.INFERRED && inferredNumeric[c]) {
+                // Colonna interamente numerica: sostituisce i codici del dizionario con i valori
+                for (int r = 0; r < rows.size(); r++) {
+                    double[] row = rows.get(r);
+                    if (!Utils.isMissingValue(row[c])) {
+                        row[c] = inferredValues.get(r)[c];
+                    }
+                }
+            }
+        }
+        return new DirectInstances(relation, attributes, rows);
+    }
+
+    private static double parseNumber(String token, String column, int lineNumber) throws IOException {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw new IOException("Riga " + lineNumber + ": valore non numerico '" + token + "' nella colonna " + column);
+        }
+    }
+
+    /**
+     * Divide una riga CSV senza regex; supporta campi tra doppi apici con "" come apice letterale.
+     */
+    static void tokenize(String line, List<String> tokens) {
+        tokens.clear();
+        int length = line.length();
+        int i = 0;
+        while (true) {
+            if (i < length && line.charAt(i) == '"') {
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (i < length) {
+                    char ch = line.charAt(i++);
+                    if (ch == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            value.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        value.append(ch);
+                    }
+                }
+                tokens.add(value.toString());
+                while (i < length && line.charAt(i) != ',') i++;
+            } else {
+                int start = i;
+                while (i < length && line.charAt(i) != ',') i++;
+                tokens.add(line.substring(start, i));
+            }
+            if (i >= length) return;
+            i++; // salta la virgola
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package wekaClass;
+
+import weka.classifiers.Classifier;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.SerializationHelper;
+import weka.core.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Archivio su disco dei modelli addestrati: un modello viene costruito una sola volta per ogni coppia
+ * (contenuto del dataset, classificatore con opzioni) e poi riletto dalle invocazioni successive.
+ *
+ * La chiave è lo SHA-256 di classificatore e opzioni complete (default compresi), attributi del dataset
+ * (nome, tipo e valori, non il nome della relazione), pesi e valori di tutte le istanze. Il file
+ * {@code <Classificatore>-<chiave>.model} contiene chiave, modello e header (SerializationHelper.writeAll)
+ * e viene scritto con un rename atomico, quindi processi concorrenti non leggono mai un modello parziale.
+ * Prima dell'addestramento vengono tolte le colonne identificative (Method, ReleaseId, File, CommitHash).
+ */
+public final class ModelStore {
+    public static final String EXTENSION = ".model";
+    private static final String CLASS_ATTRIBUTE = "Buggy";
+
+    private static final Logger LOGGER = Logger.getLogger(ModelStore.class.getName());
+
+    /**
+     * Modello addestrato con l'header (senza istanze) del dataset di training.
+     * {@code cached} è true se è stato letto dall'archivio.
+     */
+    public static final class Model {
+        public final Classifier classifier;
+        public final Instances header;
+        public final String key;
+        public final boolean cached;
+
+        Model(Classifier classifier, Instances header, String key, boolean cached) {
+            this.classifier = classifier;
+            this.header = header;
+            this.key = key;
+            this.cached = cached;
+        }
+    }
+
+    private final File directory;
+
+    public ModelStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Modello per il dataset e il classificatore indicati (nome della classe seguito dalle opzioni, come da
+     * riga di comando Weka): letto dall'archivio se presente, altrimenti addestrato e salvato.
+     */
+    public Model obtain(Instances dataset, String classifierSpec) throws Exception {
+        String[] options = Utils.splitOptions(classifierSpec);
+        if (options.length == 0) throw new IllegalArgumentException("Classificatore non indicato");
+        String className = options[0];
+        options[0] = "";
+        // Istanziazione diretta: AbstractClassifier.forName scansiona il classpath alla ricerca di schemi
+        Classifier classifier = (Classifier) Class.forName(className).getDeclaredConstructor().newInstance();
+        if (classifier instanceof OptionHandler handler) {
+            handler.setOptions(options);
+        }
+        String canonicalSpec = classifier instanceof OptionHandler handler
+                ? className + " " + Utils.joinOptions(handler.getOptions()) : className;
+
+        Instances train = prepare(dataset);
+        String key = key(train, canonicalSpec);
+        File file = new File(directory, classifier.getClass().getSimpleName() + "-" + key.substring(0, 16) + EXTENSION);
+
+        if (file.isFile()) {
+            try {
+                Object[] stored = SerializationHelper.readAll(file.getPath());
+                if (stored.length == 3 && key.equals(stored[0])) {
+                    LOGGER.fine(() -> "Modello letto da " + file);
+                    return new Model((Classifier) stored[1], (Instances) stored[2], key, true);
+                }
+                LOGGER.warning(() -> "Chiave diversa in " + file + ", il modello verrà riaddestrato");
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, e, () -> "Modello non leggibile, verrà riaddestrato: " + file);
+            }
+        }
+
+        classifier.buildClassifier(train);
+        Instances header = new Instances(train, 0);
+        Files.createDirectories(directory.toPath());
+        File temp = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            SerializationHelper.writeAll(temp.getPath(), new Object[]{key, classifier, header});
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        LOGGER.info(() -> "Modello salvato in " + file);
+        return new Model(classifier, header, key, false);
+    }
+
+    /**
+     * Dataset di training: senza colonne identificative e con Buggy (o l'ultimo attributo) come classe.
+     */
+    static Instances prepare(Instances dataset) throws Exception {
+        String idRange = PipelineRunner.identifierRange(dataset);
+        Instances train = idRange.isEmpty() ? new Instances(dataset) : AttributeFilter.remove(dataset, idRange);
+        Attribute buggy = train.attribute(CLASS_ATTRIBUTE);
+        train.setClassIndex(buggy != null ? buggy.index() : train.numAttributes() - 1);
+        return train;
+    }
+
+    static String key(Instances train, String classifierSpec) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        digest.update(classifierSpec.getBytes(StandardCharsets.UTF_8));
+        for (int a = 0; a < train.numAttributes(); a++) {
+            digest.update(train.attribute(a).toString().getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(("class=" + train.classIndex()).getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.allocate(8 * (train.numAttributes() + 1));
+        for (Instance instance : train) {
+            buffer.clear();
+            buffer.putDouble(instance.weight());
+            for (int a = 0; a < train.numAttributes(); a++) {
+                buffer.putDouble(instance.value(a));
+            }
+            buffer.flip();
+            digest.update(buffer);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,363 @@
+package wekaClass;
+
+import weka.attributeSelection.ASEvaluation;
+import weka.attributeSelection.CfsSubsetEval;
+import weka.attributeSelection.SubsetEvaluator;
+import weka.core.Attribute;
+import weka.core.Capabilities;
+import weka.core.ContingencyTables;
+import weka.core.Instances;
+import weka.core.ThreadSafe;
+import weka.core.Utils;
+import weka.filters.Filter;
+import weka.filters.supervised.attribute.Discretize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Valutatore CFS equivalente a CfsSubsetEval (classe nominale, discretizzazione supervisionata MDL, incertezza
+ * simmetrica, aggiunta degli attributi localmente predittivi) che calcola tutta la matrice delle correlazioni
+ * in anticipo e in parallelo, così che la ricerca possa valutare i sottoinsiemi in modo concorrente.
+ *
+ * Colonne discretizzate, correlazioni e merit vengono conservati in una {@link Cache} condivisa, indicizzata
+ * per contenuto delle colonne (valori della colonna e della classe, confrontati per intero oltre all'hash):
+ * eseguendo la selezione su A, B+ e B di seguito, le colonne identiche non vengono né ridiscretizzate né
+ * ricorrelate. Cache e chiavi non vengono serializzate: un valutatore deserializzato calcola i merit dalla
+ * matrice delle correlazioni senza cache.
+ * Con classe numerica o valori mancanti negli attributi si usa CfsSubsetEval così com'è.
+ */
+public class ParallelCfsSubsetEval extends ASEvaluation implements SubsetEvaluator, ThreadSafe {
+    private static final long serialVersionUID = 1L;
+    private static final float UNKNOWN = -999f;
+
+    /**
+     * Risultati riutilizzabili tra dataset diversi: thread-safe, da condividere tra più valutatori.
+     */
+    public static class Cache {
+        final Map<ColumnKey, DiscreteColumn> columns = new ConcurrentHashMap<>();
+        final Map<PairKey, Float> correlations = new ConcurrentHashMap<>();
+        final Map<List<ColumnKey>, Double> merits = new ConcurrentHashMap<>();
+
+        public int cachedColumns() {
+            return columns.size();
+        }
+
+        public int cachedCorrelations() {
+            return correlations.size();
+        }
+    }
+
+    /**
+     * Contenuto di una colonna rispetto alla classe (la discretizzazione supervisionata dipende da entrambe):
+     * l'hash serve solo a distribuire e ordinare, l'uguaglianza confronta i valori. L'array della classe è
+     * condiviso da tutte le chiavi dello stesso dataset; è null nella chiave della classe stessa.
+     */
+    static final class ColumnKey {
+        private final long hash;
+        private final int kind;
+        private final double[] values;
+        private final double[] classValues;
+
+        ColumnKey(long hash, int kind, double[] values, double[] classValues) {
+            this.hash = hash;
+            this.kind = kind;
+            this.values = values;
+            this.classValues = classValues;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ColumnKey key && hash == key.hash && kind == key.kind
+                    && Arrays.equals(values, key.values) && Arrays.equals(classValues, key.classValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+
+    record PairKey(ColumnKey first, ColumnKey second) {
+        static PairKey of(ColumnKey a, ColumnKey b) {
+            return compare(a, b) <= 0 ? new PairKey(a, b) : new PairKey(b, a);
+        }
+    }
+
+    // Colonna nominale (o discretizzata) come codici 0..numValues-1
+    record DiscreteColumn(int[] codes, int numValues) {
+    }
+
+    private transient Cache cache;
+    private final transient ExecutorService pool;
+
+    private CfsSubsetEval fallback;
+    private int classIndex;
+    private int numAttributes;
+    private transient ColumnKey[] keys;
+    private float[][] correlations;
+
+    /**
+     * @param pool pool su cui discretizzare e correlare le colonne (non viene chiuso dal valutatore)
+     */
+    public ParallelCfsSubsetEval(Cache cache, ExecutorService pool) {
+        this.cache = cache;
+        this.pool = pool;
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        return new CfsSubsetEval().getCapabilities();
+    }
+
+    @Override
+    public void buildEvaluator(Instances data) throws Exception {
+        getCapabilities().testWithFail(data);
+        Instances train = new Instances(data, 0, data.numInstances());
+        train.deleteWithMissingClass();
+        fallback = null;
+        if (train.classAttribute().isNumeric() || hasMissingValues(train)) {
+            fallback = new CfsSubsetEval();
+            fallback.buildEvaluator(data);
+            return;
+        }
+
+        if (cache == null) cache = new Cache();
+        classIndex = train.classIndex();
+        numAttributes = train.numAttributes();
+        keys = new ColumnKey[numAttributes];
+        keys[classIndex] = columnKey(train, classIndex, null);
+        for (int a = 0; a < numAttributes; a++) {
+            if (a != classIndex) keys[a] = columnKey(train, a, keys[classIndex]);
+        }
+
+        // Discretizzazione delle colonne non ancora in cache, una per task
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int a = 0; a < numAttributes; a++) {
+            if (cache.columns.containsKey(keys[a])) continue;
+            int attribute = a;
+            tasks.add(() -> {
+                cache.columns.put(keys[attribute], discretize(train, attribute));
+                return null;
+            });
+        }
+        runAll(tasks);
+
+        // Matrice triangolare delle correlazioni; le coppie già viste vengono prese dalla cache
+        correlations = new float[numAttributes][];
+        tasks.clear();
+        for (int i = 0; i < numAttributes; i++) {
+            correlations[i] = new float[i + 1];
+            correlations[i][i] = 1f;
+            for (int j = 0; j < i; j++) {
+                Float cached = cache.correlations.get(PairKey.of(keys[i], keys[j]));
+                correlations[i][j] = cached != null ? cached : UNKNOWN;
+                if (cached == null) {
+                    int first = i;
+                    int second = j;
+                    tasks.add(() -> {
+                        float value = correlate(first, second);
+                        correlations[first][second] = value;
+                        cache.correlations.put(PairKey.of(keys[first], keys[second]), value);
+                        return null;
+                    });
+                }
+            }
+        }
+        runAll(tasks);
+    }
+
+    /**
+     * Merit CFS del sottoinsieme, con le stesse somme (e nello stesso ordine) di CfsSubsetEval.
+     */
+    @Override
+    public double evaluateSubset(BitSet subset) throws Exception {
+        if (fallback != null) return fallback.evaluateSubset(subset);
+        List<ColumnKey> meritKey = null;
+        if (keys != null) {
+            meritKey = new ArrayList<>();
+            for (int i = subset.nextSetBit(0); i >= 0 && i < numAttributes; i = subset.nextSetBit(i + 1)) {
+                if (i != classIndex) meritKey.add(keys[i]);
+            }
+            meritKey.sort(ParallelCfsSubsetEval::compare);
+            meritKey.add(keys[classIndex]);
+            Double cached = cache.merits.get(meritKey);
+            if (cached != null) return cached;
+        }
+
+        double num = 0.0;
+        double denom = 0.0;
+        for (int i = 0; i < numAttributes; i++) {
+            if (i != classIndex && subset.get(i)) {
+                num += correlation(i, classIndex);
+            }
+        }
+        for (int i = 0; i < numAttributes; i++) {
+            if (i != classIndex && subset.get(i)) {
+                denom += 1.0;
+                for (int j = 0; j < i; j++) {
+                    if (j != classIndex && subset.get(j)) {
+                        denom += 2.0 * correlation(i, j);
+                    }
+                }
+            }
+        }
+        if (denom < 0.0) denom *= -1.0;
+        double merit = denom == 0.0 ? 0.0 : Math.abs(num / Math.sqrt(denom));
+        if (meritKey != null) cache.merits.put(meritKey, merit);
+        return merit;
+    }
+
+    /**
+     * Aggiunge gli attributi localmente predittivi, come CfsSubsetEval con le opzioni di default.
+     */
+    @Override
+    public int[] postProcess(int[] attributeSet) throws Exception {
+        if (fallback != null) return fallback.postProcess(attributeSet);
+        BitSet best = new BitSet(numAttributes);
+        for (int attribute : attributeSet) {
+            best.set(attribute);
+        }
+        BitSet candidates = (BitSet) best.clone();
+        while (true) {
+            double bestCorrelation = -1.0;
+            int bestIndex = -1;
+            for (int i = 0; i < numAttributes; i++) {
+                if (!candidates.get(i) && i != classIndex && correlation(i, classIndex) > bestCorrelation) {
+                    bestCorrelation = correlation(i, classIndex);
+                    bestIndex = i;
+                }
+            }
+            if (bestCorrelation == -1.0) break;
+            candidates.set(bestIndex);
+            boolean predictive = true;
+            for (int i = 0; i < numAttributes; i++) {
+                if (best.get(i) && correlation(i, bestIndex) > bestCorrelation) {
+                    predictive = false;
+                    break;
+                }
+            }
+            if (predictive) best.set(bestIndex);
+        }
+        int[] result = new int[best.cardinality()];
+        int position = 0;
+        for (int i = best.nextSetBit(0); i >= 0; i = best.nextSetBit(i + 1)) {
+            result[position++] = i;
+        }
+        return result;
+    }
+
+    private float correlation(int a, int b) {
+        return a > b ? correlations[a][b] : correlations[b][a];
+    }
+
+    /**
+     * Incertezza simmetrica tra due colonne discretizzate; 0 con la classe (1 tra attributi) se nulla.
+     */
+    private float correlate(int a, int b) {
+        DiscreteColumn first = cache.columns.get(keys[a]);
+        DiscreteColumn second = cache.columns.get(keys[b]);
+        // Riga e colonna in più per i mancanti, vuote: le colonne con mancanti usano CfsSubsetEval
+        double[][] counts = new double[first.numValues() + 1][second.numValues() + 1];
+        int[] firstCodes = first.codes();
+        int[] secondCodes = second.codes();
+        for (int r = 0; r < firstCodes.length; r++) {
+            counts[firstCodes[r]][secondCodes[r]]++;
+        }
+        double measure = ContingencyTables.symmetricalUncertainty(counts);
+        if (Utils.eq(measure, 0.0)) {
+            return a == classIndex || b == classIndex ? 0f : 1f;
+        }
+        return (float) measure;
+    }
+
+    private static DiscreteColumn discretize(Instances train, int attribute) throws Exception {
+        Instances column = train;
+        int index = attribute;
+        if (train.attribute(attribute).isNumeric()) {
+            // Dataset (attributo, classe): i cut point MDL dipendono solo da queste due colonne
+            ArrayList<Attribute> attributes = new ArrayList<>();
+            attributes.add(new Attribute(train.attribute(attribute).name()));
+            attributes.add((Attribute) train.classAttribute().copy());
+            List<double[]> rows = new ArrayList<>(train.numInstances());
+            for (int r = 0; r < train.numInstances(); r++) {
+                rows.add(new double[]{train.instance(r).value(attribute), train.instance(r).classValue()});
+            }
+            Instances pair = new DirectInstances(train.relationName(), attributes, rows);
+            pair.setClassIndex(1);
+            Discretize discretize = new Discretize();
+            discretize.setUseBetterEncoding(true);
+            discretize.setInputFormat(pair);
+            column = Filter.useFilter(pair, discretize);
+            index = 0;
+        }
+        int[] codes = new int[column.numInstances()];
+        for (int r = 0; r < codes.length; r++) {
+            codes[r] = (int) column.instance(r).value(index);
+        }
+        return new DiscreteColumn(codes, column.attribute(index).numValues());
+    }
+
+    private void runAll(List<Callable<Void>> tasks) throws Exception {
+        if (pool == null) {
+            for (Callable<Void> task : tasks) task.call();
+            return;
+        }
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            futures.add(pool.submit(task));
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+    }
+
+    private static boolean hasMissingValues(Instances data) {
+        for (int a = 0; a < data.numAttributes(); a++) {
+            if (a != data.classIndex() && data.attributeStats(a).missingCount > 0) return true;
+        }
+        return false;
+    }
+
+    // Chiave del contenuto della colonna (valori, tipo e numero di etichette), indipendente dal nome
+    private static ColumnKey columnKey(Instances data, int attribute, ColumnKey classKey) {
+        Attribute att = data.attribute(attribute);
+        int kind = att.isNumeric() ? -1 : att.numValues();
+        double[] values = data.attributeToDoubleArray(attribute);
+        long hash = 0xCBF29CE484222325L ^ values.length;
+        hash = hash * 0x100000001B3L + kind;
+        for (double value : values) {
+            hash = (hash ^ Double.doubleToLongBits(value)) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        if (classKey != null) {
+            hash = (hash ^ classKey.hash) * 0x9E3779B97F4A7C15L;
+        }
+        return new ColumnKey(hash, kind, values, classKey != null ? classKey.values : null);
+    }
+
+    // Ordine totale coerente con equals, per le chiavi canoniche di coppie e sottoinsiemi
+    private static int compare(ColumnKey a, ColumnKey b) {
+        int cmp = Long.compare(a.hash, b.hash);
+        if (cmp == 0) cmp = Integer.compare(a.kind, b.kind);
+        if (cmp == 0) cmp = Arrays.compare(a.values, b.values);
+        return cmp != 0 ? cmp : Arrays.compare(a.classValues, b.classValues);
+    }
+
+    @Override
+    public String toString() {
+        return fallback != null ? fallback.toString() : "Parallel CFS subset evaluator (" + numAttributes + " attributi)";
+    }
+}
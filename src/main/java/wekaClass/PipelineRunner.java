@@ -0,0 +1,219 @@
+package wekaClass;
+
+import services.B_CClasses;
+import services.GenerateB;
+import weka.core.Instances;
+import weka.core.converters.ArffSaver;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Esegue la catena CSV2Arff → B_CClasses/GenerateB → AttributeFilter → AttrSelection → ClassifierComparison
+ * in un'unica JVM, come DAG di stage che si passano gli Instances in memoria.
+ *
+ * Gli stage senza dipendenze reciproche (i rami A, B+, B) girano in parallelo su un pool di thread;
+ * i file intermedi vengono scritti solo se sono richiesti i checkpoint. Gli stage non devono modificare
+ * gli Instances ricevuti, che possono essere condivisi da più rami.
+ */
+public class PipelineRunner {
+    private static final String CHECKPOINT_OPTION = "--checkpoints";
+    private static final String REMOVE_OPTION = "--remove";
+    private static final String THREADS_OPTION = "--threads";
+    // Colonne identificative da togliere prima della selezione, se non indicato --remove
+    private static final List<String> ID_ATTRIBUTES = Arrays.asList("Method", "ReleaseId", "File", "CommitHash");
+    private static final String[] BRANCHES = {"A", "B+", "B"};
+
+    private static final Logger LOGGER = Logger.getLogger(PipelineRunner.class.getName());
+
+    /**
+     * Trasformazione di uno stage: riceve gli output delle dipendenze, nell'ordine dichiarato.
+     * Gli stage terminali possono restituire null.
+     */
+    @FunctionalInterface
+    public interface StageFunction {
+        Instances apply(List<Instances> inputs) throws Exception;
+    }
+
+    private static class Stage {
+        final String name;
+        final StageFunction function;
+        final List<String> dependencies;
+
+        Stage(String name, StageFunction function, List<String> dependencies) {
+            this.name = name;
+            this.function = function;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    private final File checkpointDir;
+
+    /**
+     * @param checkpointDir cartella in cui salvare l'output di ogni stage in ARFF, oppure null
+     */
+    public PipelineRunner(File checkpointDir) {
+        this.checkpointDir = checkpointDir;
+    }
+
+    /**
+     * Aggiunge uno stage; le dipendenze devono essere già dichiarate, quindi il grafo è aciclico per costruzione.
+     */
+    public PipelineRunner stage(String name, StageFunction function, String... dependencies) {
+        if (stages.containsKey(name)) {
+            throw new IllegalArgumentException("Stage duplicato: " + name);
+        }
+        for (String dependency : dependencies) {
+            if (!stages.containsKey(dependency)) {
+                throw new IllegalArgumentException("Stage " + name + ": dipendenza sconosciuta " + dependency);
+            }
+        }
+        stages.put(name, new Stage(name, function, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    /**
+     * Esegue il DAG: ogni stage parte appena le sue dipendenze sono pronte. Restituisce l'output di ogni stage.
+     */
+    public Map<String, Instances> run(int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Map<String, CompletableFuture<Instances>> futures = new LinkedHashMap<>();
+        try {
+            for (Stage stage : stages.values()) {
+                List<CompletableFuture<Instances>> inputs = new ArrayList<>();
+                for (String dependency : stage.dependencies) {
+                    inputs.add(futures.get(dependency));
+                }
+                CompletableFuture<Instances> future = CompletableFuture
+                        .allOf(inputs.toArray(CompletableFuture<?>[]::new))
+                        .thenApplyAsync(ignored -> execute(stage, inputs), pool);
+                futures.put(stage.name, future);
+            }
+
+            Map<String, Instances> results = new LinkedHashMap<>();
+            for (Map.Entry<String, CompletableFuture<Instances>> entry : futures.entrySet()) {
+                results.put(entry.getKey(), entry.getValue().join());
+            }
+            return results;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Instances execute(Stage stage, List<CompletableFuture<Instances>> inputs) {
+        try {
+            List<Instances> data = new ArrayList<>();
+            for (CompletableFuture<Instances> input : inputs) {
+                data.add(input.join());
+            }
+            long start = System.currentTimeMillis();
+            Instances output = stage.function.apply(data);
+            long elapsed = System.currentTimeMillis() - start;
+            LOGGER.info(() -> "Stage " + stage.name + " completato in " + elapsed + " ms"
+                    + (output != null ? " (" + output.numInstances() + " istanze, " + output.numAttributes() + " attributi)" : ""));
+            if (output != null && checkpointDir != null) {
+                saveCheckpoint(stage.name, output);
+            }
+            return output;
+        } catch (Exception e) {
+            throw new CompletionException(new Exception("Stage " + stage.name + " fallito: " + e.getMessage(), e));
+        }
+    }
+
+    private void saveCheckpoint(String name, Instances data) throws Exception {
+        ArffSaver saver = new ArffSaver();
+        saver.setInstances(data);
+        saver.setFile(new File(checkpointDir, name + ".arff"));
+        saver.writeBatch();
+    }
+
+    /**
+     * Range Weka (1-based) delle colonne identificative presenti nel dataset.
+     */
+    static String identifierRange(Instances data) {
+        List<String> indices = new ArrayList<>();
+        for (String name : ID_ATTRIBUTES) {
+            if (data.attribute(name) != null) {
+                indices.add(String.valueOf(data.attribute(name).index() + 1));
+            }
+        }
+        return String.join(",", indices);
+    }
+
+    /**
+     * Pipeline standard: dal CSV delle metriche ai risultati di ClassifierComparison per i dataset A, B+ e B.
+     * C (metodi senza smell) viene calcolato solo come checkpoint.
+     */
+    public static PipelineRunner standardPipeline(File metricsCsv, File outputDir, String removeRange, boolean checkpoints) {
+        PipelineRunner runner = new PipelineRunner(checkpoints ? outputDir : null);
+        // Cache CFS condivisa: B+ e B riusano colonne discretizzate e correlazioni già calcolate per A
+        ParallelCfsSubsetEval.Cache selectionCache = new ParallelCfsSubsetEval.Cache();
+        int selectionThreads = Runtime.getRuntime().availableProcessors();
+        runner.stage("A", in -> CSV2Arff.load(metricsCsv));
+        runner.stage("B+", in -> B_CClasses.filterBySmells(in.get(0), true), "A");
+        runner.stage("B", in -> GenerateB.zeroSmells(in.get(0)), "B+");
+        if (checkpoints) {
+            runner.stage("C", in -> B_CClasses.filterBySmells(in.get(0), false), "A");
+        }
+        for (String branch : BRANCHES) {
+            String filtered = branch + "_filtered";
+            String selected = branch + "_selected";
+            runner.stage(filtered, in -> AttributeFilter.remove(in.get(0),
+                    removeRange != null ? removeRange : identifierRange(in.get(0))), branch);
+            runner.stage(selected, in -> AttrSelection.select(in.get(0), selectionCache, selectionThreads), filtered);
+            runner.stage(branch + "_results", in -> {
+                String resultsPath = new File(outputDir, "classification_results_" + branch + ".csv").getPath();
+                ClassifierComparison.compare(in.get(0), resultsPath, branch);
+                return null;
+            }, selected);
+        }
+        return runner;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java wekaClass.PipelineRunner <metrics.csv> <outputDir> [--remove <range>] [--threads <n>] [--checkpoints]");
+            return;
+        }
+        File metricsCsv = new File(args[0]);
+        File outputDir = new File(args[1]);
+        String removeRange = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean checkpoints = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case REMOVE_OPTION -> removeRange = args[++i];
+                case THREADS_OPTION -> threads = Integer.parseInt(args[++i]);
+                case CHECKPOINT_OPTION -> checkpoints = true;
+                default -> {
+                    System.out.println("Opzione sconosciuta: " + args[i]);
+                    return;
+                }
+            }
+        }
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            System.err.println("Impossibile creare la cartella di output: " + outputDir);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        standardPipeline(metricsCsv, outputDir, removeRange, checkpoints).run(threads);
+        System.out.println("Pipeline completata in " + (System.currentTimeMillis() - start) + " ms, risultati in " + outputDir);
+    }
+}
@@ -2,55 +2,71 @@ package wekaClass;
 
 import weka.core.Instances;
 import weka.core.Instance;
-import weka.core.converters.ConverterUtils.DataSource;
-import java.util.Scanner;
 import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PrintMethodFeatures {
+    private static final String BATCH_OPTION = "--batch";
+
     public static void main(String[] args) throws Exception {
         if (args.length != 3) {
             System.out.println("Usage: java wekaClass.PrintMethodFeatures <file.arff> <methodName> <commitHash>");
+            System.out.println("       java wekaClass.PrintMethodFeatures <file.arff> " + BATCH_OPTION + " <pairs.txt>");
             return;
         }
 
         String arffPath = args[0];
-        String methodToFind = args[1];
-        String commitToFind = args[2];
+        Instances data = DatasetLoader.load(arffPath);
+        DatasetIndex index = DatasetIndex.forDataset(arffPath, data);
+
+        if (BATCH_OPTION.equals(args[1])) {
+            // Una coppia "metodo commit" per riga; righe vuote e commenti (#) ignorati
+            List<String[]> pairs = new ArrayList<>();
+            for (String line : Files.readAllLines(new File(args[2]).toPath())) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+                String[] tokens = trimmed.split("[,\\s]+");
+                if (tokens.length >= 2) pairs.add(tokens);
+            }
+            int[] rows = index.findAll(pairs);
+            for (int i = 0; i < rows.length; i++) {
+                printResult(data, rows[i], pairs.get(i)[0], pairs.get(i)[1], System.out);
+            }
+        } else {
+            printResult(data, index.find(args[1], args[2]), args[1], args[2], System.out);
+        }
+    }
 
-        DataSource source = new DataSource(arffPath);
-        Instances data = source.getDataSet();
+    private static void printResult(Instances data, int row, String methodToFind, String commitToFind, PrintStream out) {
+        if (row >= 0) {
+            printFeatures(data, data.instance(row), out);
+        } else {
+            out.println("Metodo non trovato: " + methodToFind + " nel commit " + commitToFind);
+        }
+    }
 
+    public static void printFeatures(Instances data, Instance inst, PrintStream out) {
         int methodIndex = data.attribute("Method").index();
         int releaseIndex = data.attribute("ReleaseId").index();
         int commitIndex = data.attribute("CommitHash").index();
         int buggyIndex = data.attribute("Buggy").index();
 
-        boolean found = false;
-        for (int i = 0; i < data.numInstances(); i++) {
-            Instance inst = data.instance(i);
-            if (inst.stringValue(methodIndex).equals(methodToFind) &&
-                inst.toString(commitIndex).equals(commitToFind)) {
-                found = true;
-                System.out.println("Metodo trovato: " + methodToFind);
-                System.out.println("Commit: " + inst.toString(commitIndex));
-                System.out.println("Bugginess: " + inst.stringValue(buggyIndex));
-                System.out.println("Feature:");
-                for (int j = 0; j < data.numAttributes(); j++) {
-                    if (j != methodIndex && j != releaseIndex && j != buggyIndex) {
-                        String attrName = data.attribute(j).name();
-                        if (data.attribute(j).isNumeric()) {
-                            System.out.println(attrName + ": " + inst.value(j));
-                        } else {
-                            System.out.println(attrName + ": " + inst.stringValue(j));
-                        }
-                    }
+        out.println("Metodo trovato: " + inst.stringValue(methodIndex));
+        out.println("Commit: " + inst.toString(commitIndex));
+        out.println("Bugginess: " + inst.stringValue(buggyIndex));
+        out.println("Feature:");
+        for (int j = 0; j < data.numAttributes(); j++) {
+            if (j != methodIndex && j != releaseIndex && j != buggyIndex) {
+                String attrName = data.attribute(j).name();
+                if (data.attribute(j).isNumeric()) {
+                    out.println(attrName + ": " + inst.value(j));
+                } else {
+                    out.println(attrName + ": " + inst.stringValue(j));
                 }
-                break;
             }
         }
-
-        if (!found) {
-            System.out.println("Metodo non trovato: " + methodToFind + " nel commit " + commitToFind);
-        }
     }
 }
@@ -0,0 +1,276 @@
+package wekaClass;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffLoader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Lettura riga per riga di un dataset nello schema di un header dato (quello di un modello), senza caricarlo
+ * in memoria: CSV di metriche (MetricsCsvReader.tokenize), ARFF (ArffLoader incrementale) e .mcol (colonne
+ * mappate); gli altri formati passano da DatasetLoader e quindi vengono caricati per intero.
+ *
+ * Le colonne vengono associate per nome e le etichette nominali per valore: etichette sconosciute e colonne
+ * assenti diventano valori mancanti. Ogni riga è una nuova istanza con il proprio array di valori.
+ */
+final class RowStreams {
+    private static final String MISSING = "?";
+    private static final String CLASS_COLUMN = "Buggy";
+    private static final List<String> CLASS_VALUES = List.of("NO", "YES");
+
+    private static final Logger LOGGER = Logger.getLogger(RowStreams.class.getName());
+
+    /**
+     * Sorgente di righe già convertite nello schema richiesto; null a fine file.
+     */
+    interface RowReader extends Closeable {
+        Instance next() throws IOException;
+    }
+
+    private RowStreams() {
+        // Utility class
+    }
+
+    /**
+     * Schema della sorgente senza righe: per i CSV le colonne di MetricsCsvReader.NUMERIC_COLUMNS sono
+     * numeriche, Buggy è {NO,YES} e le altre sono stringhe (i loro valori non sono noti senza leggere il file).
+     */
+    static Instances structure(String path) throws Exception {
+        String lower = path.toLowerCase();
+        if (lower.endsWith(".csv")) {
+            List<String> names = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(new File(path).toPath(), StandardCharsets.UTF_8)) {
+                String headerLine = reader.readLine();
+                if (headerLine == null) throw new IOException("CSV vuoto: " + path);
+                MetricsCsvReader.tokenize(headerLine, names);
+            }
+            ArrayList<Attribute> attributes = new ArrayList<>();
+            for (String column : names) {
+                String name = column.trim();
+                if (MetricsCsvReader.NUMERIC_COLUMNS.contains(name)) {
+                    attributes.add(new Attribute(name));
+                } else if (CLASS_COLUMN.equals(name)) {
+                    attributes.add(new Attribute(name, CLASS_VALUES));
+                } else {
+                    attributes.add(new Attribute(name, (List<String>) null));
+                }
+            }
+            return new Instances(new File(path).getName(), attributes, 0);
+        }
+        if (lower.endsWith(".arff")) {
+            ArffLoader loader = new ArffLoader();
+            loader.setFile(new File(path));
+            Instances structure = loader.getStructure();
+            loader.reset();
+            return structure;
+        }
+        if (lower.endsWith(ColumnarDataset.EXTENSION)) {
+            ColumnarDataset dataset = ColumnarDataset.open(new File(path));
+            ArrayList<Attribute> attributes = new ArrayList<>();
+            for (int c = 0; c < dataset.numColumns(); c++) {
+                String name = dataset.columnName(c);
+                attributes.add(dataset.isNumeric(c) ? new Attribute(name) : new Attribute(name, dataset.labels(c)));
+            }
+            return new Instances(new File(path).getName(), attributes, 0);
+        }
+        Instances data = DatasetLoader.load(path);
+        if (data == null) throw new IOException("Formato non riconosciuto: " + path);
+        return new Instances(data, 0);
+    }
+
+    static RowReader open(String path, Instances header) throws Exception {
+        String lower = path.toLowerCase();
+        if (lower.endsWith(".csv")) {
+            return csvReader(new File(path), header);
+        }
+        if (lower.endsWith(".arff")) {
+            ArffLoader loader = new ArffLoader();
+            loader.setFile(new File(path));
+            Instances structure = loader.getStructure();
+            int[] mapping = mapping(structure, header);
+            return new RowReader() {
+                @Override
+                public Instance next() throws IOException {
+                    Instance source = loader.getNextInstance(structure);
+                    return source == null ? null : convert(source, mapping, header);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    loader.reset();
+                }
+            };
+        }
+        if (lower.endsWith(ColumnarDataset.EXTENSION)) {
+            return columnarReader(ColumnarDataset.open(new File(path)), header);
+        }
+        Instances data = DatasetLoader.load(path);
+        if (data == null) throw new IOException("Formato non riconosciuto: " + path);
+        int[] mapping = mapping(data, header);
+        return new RowReader() {
+            private int row;
+
+            @Override
+            public Instance next() {
+                return row < data.numInstances() ? convert(data.instance(row++), mapping, header) : null;
+            }
+
+            @Override
+            public void close() {
+                // Niente da chiudere
+            }
+        };
+    }
+
+    // Per ogni attributo dell'header, l'indice della colonna omonima della sorgente (-1 se assente)
+    private static int[] mapping(Instances source, Instances header) {
+        List<String> names = new ArrayList<>();
+        for (int a = 0; a < source.numAttributes(); a++) {
+            names.add(source.attribute(a).name());
+        }
+        return columns(names, header);
+    }
+
+    private static int[] columns(List<String> sourceNames, Instances header) {
+        int[] mapping = new int[header.numAttributes()];
+        for (int a = 0; a < mapping.length; a++) {
+            mapping[a] = sourceNames.indexOf(header.attribute(a).name());
+            if (mapping[a] < 0 && a != header.classIndex()) {
+                String name = header.attribute(a).name();
+                LOGGER.warning(() -> "Colonna " + name + " assente, trattata come mancante");
+            }
+        }
+        return mapping;
+    }
+
+    private static Instance convert(Instance source, int[] mapping, Instances header) {
+        double[] values = new double[mapping.length];
+        for (int a = 0; a < mapping.length; a++) {
+            int column = mapping[a];
+            Attribute attribute = header.attribute(a);
+            if (column < 0 || source.isMissing(column)) {
+                values[a] = Double.NaN;
+            } else if (attribute.isNumeric()) {
+                values[a] = source.value(column);
+            } else {
+                values[a] = label(attribute, source.stringValue(column));
+            }
+        }
+        return instance(values, header);
+    }
+
+    private static RowReader csvReader(File file, Instances header) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+        List<String> tokens = new ArrayList<>();
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            reader.close();
+            throw new IOException("CSV vuoto: " + file);
+        }
+        MetricsCsvReader.tokenize(headerLine, tokens);
+        List<String> names = new ArrayList<>(tokens.stream().map(String::trim).toList());
+        int[] mapping = columns(names, header);
+        return new RowReader() {
+            @Override
+            public Instance next() throws IOException {
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.isEmpty());
+                if (line == null) return null;
+                MetricsCsvReader.tokenize(line, tokens);
+                if (tokens.size() != names.size()) {
+                    throw new IOException("Riga con " + tokens.size() + " colonne invece di " + names.size() + ": " + line);
+                }
+                double[] values = new double[mapping.length];
+                Arrays.fill(values, Double.NaN);
+                for (int a = 0; a < mapping.length; a++) {
+                    if (mapping[a] < 0) continue;
+                    String token = tokens.get(mapping[a]);
+                    if (token.isEmpty() || MISSING.equals(token)) continue;
+                    Attribute attribute = header.attribute(a);
+                    values[a] = attribute.isNumeric() ? number(token) : label(attribute, token);
+                }
+                return instance(values, header);
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    // Le etichette delle colonne nominali vengono tradotte una volta sola in codici dell'header
+    private static RowReader columnarReader(ColumnarDataset dataset, Instances header) {
+        List<String> names = new ArrayList<>();
+        for (int c = 0; c < dataset.numColumns(); c++) {
+            names.add(dataset.columnName(c));
+        }
+        int[] mapping = columns(names, header);
+        int[][] codes = new int[mapping.length][];
+        for (int a = 0; a < mapping.length; a++) {
+            if (mapping[a] < 0 || header.attribute(a).isNumeric()) continue;
+            List<String> labels = dataset.labels(mapping[a]);
+            codes[a] = new int[labels.size()];
+            for (int v = 0; v < labels.size(); v++) {
+                codes[a][v] = header.attribute(a).indexOfValue(labels.get(v));
+            }
+        }
+        return new RowReader() {
+            private int row;
+
+            @Override
+            public Instance next() {
+                if (row == dataset.numRows()) return null;
+                double[] values = new double[mapping.length];
+                for (int a = 0; a < mapping.length; a++) {
+                    double value = mapping[a] < 0 ? Double.NaN : dataset.value(row, mapping[a]);
+                    if (codes[a] != null && !Double.isNaN(value)) {
+                        int code = codes[a][(int) value];
+                        value = code < 0 ? Double.NaN : code;
+                    }
+                    values[a] = value;
+                }
+                row++;
+                return instance(values, header);
+            }
+
+            @Override
+            public void close() {
+                // Il mapping viene rilasciato dal GC
+            }
+        };
+    }
+
+    private static Instance instance(double[] values, Instances header) {
+        Instance instance = new DenseInstance(1.0, values);
+        instance.setDataset(header);
+        return instance;
+    }
+
+    private static double number(String token) {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static double label(Attribute attribute, String value) {
+        int code = attribute.indexOfValue(value);
+        return code < 0 ? Double.NaN : code;
+    }
+}
@@ -0,0 +1,85 @@
+package wekaClass;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernel SIMD con jdk.incubator.vector: ciclo principale sulla larghezza preferita della CPU e coda scalare.
+ * Caricata solo da {@link ColumnKernels} quando il modulo è disponibile.
+ */
+final class VectorKernels implements ColumnKernels.Kernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public double sum(double[] x, int n) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, x, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) sum += x[i];
+        return sum;
+    }
+
+    @Override
+    public double dot(double[] x, double[] y, int n) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            acc = DoubleVector.fromArray(SPECIES, x, i).fma(DoubleVector.fromArray(SPECIES, y, i), acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) sum += x[i] * y[i];
+        return sum;
+    }
+
+    @Override
+    public double coMoment(double[] x, double meanX, double[] y, double meanY, int n) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, x, i).sub(meanX);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, y, i).sub(meanY);
+            acc = dx.fma(dy, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) sum += (x[i] - meanX) * (y[i] - meanY);
+        return sum;
+    }
+
+    @Override
+    public double[] minMax(double[] x, int n) {
+        DoubleVector min = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        DoubleVector max = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            // Confronto e blend: min()/max() gestiscono NaN e -0.0 come Math.min e sono molto più lenti
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, i);
+            min = min.blend(v, v.lt(min));
+            max = max.blend(v, v.compare(VectorOperators.GT, max));
+        }
+        double low = min.reduceLanes(VectorOperators.MIN);
+        double high = max.reduceLanes(VectorOperators.MAX);
+        for (; i < n; i++) {
+            low = Math.min(low, x[i]);
+            high = Math.max(high, x[i]);
+        }
+        return new double[]{low, high};
+    }
+
+    @Override
+    public void scale(double[] x, double offset, double factor, double[] out, int n) {
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, x, i).sub(offset).mul(factor).intoArray(out, i);
+        }
+        for (; i < n; i++) out[i] = (x[i] - offset) * factor;
+    }
+}
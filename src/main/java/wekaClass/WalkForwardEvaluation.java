@@ -0,0 +1,232 @@
+package wekaClass;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.classifiers.UpdateableClassifier;
+import weka.classifiers.bayes.NaiveBayes;
+import weka.classifiers.lazy.IBk;
+import weka.classifiers.trees.RandomForest;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Valutazione walk-forward ordinata per ReleaseId: per ogni release k il modello viene addestrato sulle
+ * release 0..k-1 e testato sulla release k.
+ *
+ * Il dataset viene ordinato per release una sola volta; i training set sono viste sul prefisso del dataset
+ * ordinato (riferimenti alle istanze, senza copie), estese di una release a ogni passo. I classificatori
+ * che implementano UpdateableClassifier non vengono riaddestrati: ricevono solo le righe della nuova release.
+ */
+public class WalkForwardEvaluation {
+    private static final String RELEASE_ATTRIBUTE = "ReleaseId";
+    private static final String CLASS_ATTRIBUTE = "Buggy";
+    private static final String DEFAULT_OUTPUT = "walkforward_results.csv";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java wekaClass.WalkForwardEvaluation <dataset.arff> [output.csv]");
+            return;
+        }
+        Instances data = DatasetLoader.load(args[0]);
+        if (data == null) {
+            System.err.println("Errore: il file non è stato caricato correttamente. Controlla il percorso: " + args[0]);
+            return;
+        }
+        evaluate(data, args.length == 2 ? args[1] : DEFAULT_OUTPUT);
+    }
+
+    /**
+     * Dataset ordinato per release con gli offset di inizio di ogni release (releaseStart[k]..releaseStart[k+1]).
+     */
+    static class ReleaseOrderedData {
+        final Instances data;
+        final List<String> releases;
+        final int[] releaseStart;
+
+        ReleaseOrderedData(Instances data, List<String> releases, int[] releaseStart) {
+            this.data = data;
+            this.releases = releases;
+            this.releaseStart = releaseStart;
+        }
+
+        int numReleases() {
+            return releases.size();
+        }
+    }
+
+    /**
+     * Ordina le righe per release (confronto per versione, stabile dentro la release) con un'unica copia,
+     * poi rimuove le colonne identificative e imposta Buggy come classe.
+     */
+    static ReleaseOrderedData orderByRelease(Instances dataset) throws Exception {
+        Attribute release = dataset.attribute(RELEASE_ATTRIBUTE);
+        if (release == null || !release.isNominal()) {
+            throw new IllegalArgumentException("Attributo nominale " + RELEASE_ATTRIBUTE + " non trovato");
+        }
+
+        // Ordine delle release per versione, non per ordine di dichiarazione nell'header
+        List<String> releases = new ArrayList<>();
+        for (int v = 0; v < release.numValues(); v++) {
+            releases.add(release.value(v));
+        }
+        releases.sort(RELEASE_ORDER);
+        int[] rank = new int[release.numValues()];
+        for (int k = 0; k < releases.size(); k++) {
+            rank[release.indexOfValue(releases.get(k))] = k;
+        }
+
+        // Counting sort delle righe per release
+        int[] counts = new int[releases.size() + 1];
+        for (int i = 0; i < dataset.numInstances(); i++) {
+            if (!dataset.instance(i).isMissing(release)) {
+                counts[rank[(int) dataset.instance(i).value(release)] + 1]++;
+            }
+        }
+        for (int k = 1; k < counts.length; k++) {
+            counts[k] += counts[k - 1];
+        }
+        int[] releaseStart = counts.clone();
+        int[] order = new int[counts[counts.length - 1]];
+        for (int i = 0; i < dataset.numInstances(); i++) {
+            if (!dataset.instance(i).isMissing(release)) {
+                order[counts[rank[(int) dataset.instance(i).value(release)]]++] = i;
+            }
+        }
+
+        Instances sorted = new Instances(dataset, order.length);
+        for (int i : order) {
+            sorted.add(dataset.instance(i));
+        }
+        String idRange = PipelineRunner.identifierRange(sorted);
+        Instances filtered = idRange.isEmpty() ? sorted : AttributeFilter.remove(sorted, idRange);
+        Attribute buggy = filtered.attribute(CLASS_ATTRIBUTE);
+        filtered.setClassIndex(buggy != null ? buggy.index() : filtered.numAttributes() - 1);
+        return new ReleaseOrderedData(filtered, releases, releaseStart);
+    }
+
+    /**
+     * Confronto tra release per versione: i componenti numerici ("3.10.0" > "3.9.1") sono confrontati
+     * come numeri, gli altri come stringhe.
+     */
+    public static final Comparator<String> RELEASE_ORDER = (a, b) -> {
+        String[] pa = a.split("[.\\-_]");
+        String[] pb = b.split("[.\\-_]");
+        for (int i = 0; i < Math.min(pa.length, pb.length); i++) {
+            int cmp;
+            if (pa[i].matches("\\d+") && pb[i].matches("\\d+")) {
+                cmp = Long.compare(Long.parseLong(pa[i]), Long.parseLong(pb[i]));
+            } else {
+                cmp = pa[i].compareTo(pb[i]);
+            }
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(pa.length, pb.length);
+    };
+
+    /**
+     * Vista su un intervallo di righe di un dataset: condivide le istanze (nessuna copia) e può essere estesa.
+     * I classificatori Weka non modificano il training set ricevuto, quindi la condivisione è sicura.
+     */
+    static class RangeView extends Instances {
+        private static final long serialVersionUID = 1L;
+
+        private final Instances source;
+        private int end;
+
+        RangeView(Instances source, int start, int end) {
+            super(source, Math.max(0, end - start));
+            this.source = source;
+            this.end = start;
+            extendTo(end);
+        }
+
+        void extendTo(int newEnd) {
+            for (int i = end; i < newEnd; i++) {
+                m_Instances.add(source.instance(i));
+            }
+            end = Math.max(end, newEnd);
+        }
+    }
+
+    public static void evaluate(Instances dataset, String outputPath) throws Exception {
+        ReleaseOrderedData ordered = orderByRelease(dataset);
+        Instances data = ordered.data;
+
+        Classifier[] classifiers = {
+            new RandomForest(),
+            new NaiveBayes(),
+            new IBk()
+        };
+
+        String[] classifierNames = {
+            "RandomForest",
+            "NaiveBayes",
+            "IBk"
+        };
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(outputPath))) {
+            writer.println("Classifier,Release,TrainSize,TestSize,Accuracy,Precision,Recall,F-Measure,AUC,Kappa");
+
+            for (int c = 0; c < classifiers.length; c++) {
+                System.out.println("=== Walk-forward: " + classifierNames[c] + " ===");
+                boolean incremental = classifiers[c] instanceof UpdateableClassifier;
+                RangeView train = new RangeView(data, 0, 0);
+                Classifier model = null;
+                // Righe già passate al modello: avanza solo quando il modello viene costruito o aggiornato
+                int modelEnd = 0;
+                int evaluated = 0;
+                double totalAUC = 0, totalFMeasure = 0;
+
+                for (int k = 1; k < ordered.numReleases(); k++) {
+                    int trainEnd = ordered.releaseStart[k];
+                    int testEnd = ordered.releaseStart[k + 1];
+                    train.extendTo(trainEnd);
+                    if (trainEnd == 0 || testEnd == trainEnd) continue;
+
+                    if (incremental && model != null) {
+                        // Solo le righe non ancora viste (anche di release saltate perché senza test) vanno al modello
+                        for (int i = modelEnd; i < trainEnd; i++) {
+                            ((UpdateableClassifier) model).updateClassifier(data.instance(i));
+                        }
+                    } else {
+                        model = AbstractClassifier.makeCopy(classifiers[c]);
+                        model.buildClassifier(train);
+                    }
+                    modelEnd = trainEnd;
+
+                    Instances test = new RangeView(data, trainEnd, testEnd);
+                    Evaluation eval = new Evaluation(train);
+                    eval.evaluateModel(model, test);
+
+                    String release = ordered.releases.get(k);
+                    System.out.printf("→ %s - Release %s - Train %d - Test %d - AUC %.4f%n",
+                            classifierNames[c], release, train.numInstances(), test.numInstances(), eval.areaUnderROC(1));
+                    writer.printf("%s,%s,%d,%d,%.2f,%.4f,%.4f,%.4f,%.4f,%.4f%n",
+                            classifierNames[c], release, train.numInstances(), test.numInstances(),
+                            eval.pctCorrect(), eval.precision(1), eval.recall(1), eval.fMeasure(1),
+                            eval.areaUnderROC(1), eval.kappa());
+
+                    if (!Double.isNaN(eval.areaUnderROC(1))) {
+                        totalAUC += eval.areaUnderROC(1);
+                        totalFMeasure += eval.fMeasure(1);
+                        evaluated++;
+                    }
+                }
+
+                if (evaluated > 0) {
+                    System.out.printf("Average AUC: %.4f%n", totalAUC / evaluated);
+                    System.out.printf("Average F-Measure: %.4f%n", totalFMeasure / evaluated);
+                }
+                System.out.println();
+            }
+        }
+        System.out.println("Risultati salvati in " + outputPath);
+    }
+}
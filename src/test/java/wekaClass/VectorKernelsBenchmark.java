@@ -0,0 +1,91 @@
+package wekaClass;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH dei kernel scalari e SIMD di ColumnKernels su colonne casuali.
+ *
+ * Ogni combinazione di parametri gira in un fork separato (con {@code --add-modules jdk.incubator.vector}),
+ * quindi in ogni JVM i siti di chiamata vedono una sola implementazione. Si compila con
+ * {@code mvn test-compile} e si avvia con {@code java -cp <test-classes:classes:dipendenze>
+ * org.openjdk.jmh.Main VectorKernelsBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorKernelsBenchmark {
+    @Param({"1000", "38000"})
+    private int length;
+
+    @Param({"scalar", "simd"})
+    private String implementation;
+
+    private ColumnKernels.Kernels kernels;
+    private double[] x;
+    private double[] y;
+    private double[] out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (implementation.equals("simd")) {
+            if (!ColumnKernels.vectorized()) {
+                throw new IllegalStateException("Vector API non disponibile: serve --add-modules jdk.incubator.vector");
+            }
+            kernels = new VectorKernels();
+        } else {
+            kernels = new ColumnKernels.ScalarKernels();
+        }
+        Random random = new Random(42);
+        x = new double[length];
+        y = new double[length];
+        out = new double[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = random.nextInt(500);
+            y[i] = random.nextGaussian() * 10 + x[i] / 7;
+        }
+    }
+
+    @Benchmark
+    public double sum() {
+        return kernels.sum(x, length);
+    }
+
+    @Benchmark
+    public double dot() {
+        return kernels.dot(x, y, length);
+    }
+
+    @Benchmark
+    public double coMoment() {
+        return kernels.coMoment(x, 250, y, 35, length);
+    }
+
+    @Benchmark
+    public double[] minMax() {
+        return kernels.minMax(x, length);
+    }
+
+    @Benchmark
+    public void scale(Blackhole blackhole) {
+        kernels.scale(x, 250, 0.01, out, length);
+        blackhole.consume(out);
+    }
+}